@@ -16,15 +16,20 @@ import uapi.app.ILauncher;
 import uapi.config.ICliConfigProvider;
 import uapi.helper.TimeHelper;
 import uapi.log.ILogger;
+import uapi.service.CriticalPath;
 import uapi.service.IRegistry;
 import uapi.service.IService;
+import uapi.service.IServiceIndex;
 import uapi.service.annotation.Inject;
 import uapi.service.annotation.Optional;
 import uapi.service.annotation.Service;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.ServiceLoader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 import java.util.concurrent.Semaphore;
 
 /**
@@ -33,13 +38,18 @@ import java.util.concurrent.Semaphore;
 @Service
 public class Launcher implements ILauncher {
 
+    /**
+     * The system property which indicate how many threads are used to initialize services,
+     * the services are initialized in main thread if it is not set
+     */
+    public static final String PROP_STARTUP_PARALLELISM = "uapi.startup.parallelism";
+
     public static void main(String[] args) {
         long startTime = System.currentTimeMillis();
 
-        ServiceLoader<IService> svcLoaders = ServiceLoader.load(IService.class);
         List<IRegistry> svcRegistries = new ArrayList<>();
         List<IService> svcs = new ArrayList<>();
-        Observable.from(svcLoaders)
+        Observable.from(loadServices())
                 .doOnNext(svcs::add)
                 .filter(svc -> svc instanceof IRegistry)
                 .subscribe(svc -> svcRegistries.add((IRegistry) svc));
@@ -56,12 +66,112 @@ public class Launcher implements ILauncher {
         ICliConfigProvider cliCfgProvider = svcRegistry.findService(ICliConfigProvider.class);
         cliCfgProvider.parse(args);
 
-        svcRegistry.start();
+        Integer parallelism = Integer.getInteger(PROP_STARTUP_PARALLELISM);
+        CriticalPath criticalPath = null;
+        if (parallelism == null) {
+            svcRegistry.start();
+        } else {
+            criticalPath = svcRegistry.start(parallelism);
+        }
 
         Launcher launcher = svcRegistry.findService(Launcher.class);
+        if (criticalPath != null) {
+            launcher._logger.info("Services are initialized by {} threads, the critical path is {}", parallelism, criticalPath);
+        }
         launcher.launch(startTime);
     }
 
+    private static final String PATH_SERVICE_CONFIG = "META-INF/services/" + IService.class.getName();
+    private static final String PATH_SERVICE_INDEX = "META-INF/services/" + IServiceIndex.class.getName();
+
+    /**
+     * Load services from generated service indexes, the services which are not indexed
+     * (like services in the jar which was built without index) are loaded by their service
+     * provider configuration files.
+     * The service provider configuration file of a module which has an index is not read,
+     * so a module which is covered by index is loaded without reading its service list and
+     * without reflection.
+     *
+     * @return  All services
+     */
+    private static List<IService> loadServices() {
+        List<IService> svcs = new ArrayList<>();
+        Set<String> indexedTypes = new HashSet<>();
+        for (IServiceIndex svcIndex : ServiceLoader.load(IServiceIndex.class)) {
+            Collections.addAll(indexedTypes, svcIndex.getServiceTypes());
+            Collections.addAll(svcs, svcIndex.createServices());
+        }
+        if (indexedTypes.size() == 0) {
+            ServiceLoader.load(IService.class).forEach(svcs::add);
+            return svcs;
+        }
+        Observable.from(loadServiceTypes(getModules(PATH_SERVICE_INDEX)))
+                .filter(svcType -> ! indexedTypes.contains(svcType))
+                .map(Launcher::createService)
+                .subscribe(svcs::add);
+        return svcs;
+    }
+
+    /**
+     * Return the modules which contain specific resource, the module is identified
+     * by the location of the resource without the resource path
+     */
+    private static Set<String> getModules(final String resourcePath) {
+        Set<String> modules = new HashSet<>();
+        try {
+            Enumeration<URL> resources = Launcher.class.getClassLoader().getResources(resourcePath);
+            while (resources.hasMoreElements()) {
+                modules.add(getModule(resources.nextElement(), resourcePath));
+            }
+        } catch (IOException ex) {
+            throw new KernelException(ex);
+        }
+        return modules;
+    }
+
+    private static String getModule(final URL resource, final String resourcePath) {
+        String location = resource.toString();
+        return location.substring(0, location.length() - resourcePath.length());
+    }
+
+    private static Set<String> loadServiceTypes(final Set<String> indexedModules) {
+        Set<String> svcTypes = new LinkedHashSet<>();
+        try {
+            Enumeration<URL> cfgFiles = Launcher.class.getClassLoader().getResources(PATH_SERVICE_CONFIG);
+            while (cfgFiles.hasMoreElements()) {
+                URL cfgFile = cfgFiles.nextElement();
+                if (indexedModules.contains(getModule(cfgFile, PATH_SERVICE_CONFIG))) {
+                    continue;
+                }
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(cfgFile.openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        int commentIdx = line.indexOf('#');
+                        if (commentIdx >= 0) {
+                            line = line.substring(0, commentIdx);
+                        }
+                        line = line.trim();
+                        if (line.length() > 0) {
+                            svcTypes.add(line);
+                        }
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new KernelException(ex);
+        }
+        return svcTypes;
+    }
+
+    private static IService createService(final String serviceType) {
+        try {
+            return (IService) Class.forName(serviceType, true, Launcher.class.getClassLoader()).newInstance();
+        } catch (Exception ex) {
+            throw new KernelException(ex, "Create service {} failed", serviceType);
+        }
+    }
+
     @Inject
     ILogger _logger;
 
@@ -87,9 +197,9 @@ public class Launcher implements ILauncher {
 
         long expend = System.currentTimeMillis() - startTime;
         long expendSecond = expend / TimeHelper.MS_OF_SECOND;
-        long expendMs = expend - (expend / TimeHelper.MS_OF_SECOND);
+        long expendMs = expend % TimeHelper.MS_OF_SECOND;
 
-        this._logger.info("System launched, expend {}.{}s", expendSecond, expendMs);
+        this._logger.info("System launched, expend {}.{}s", expendSecond, String.format("%03d", expendMs));
         try {
             Runtime.getRuntime().addShutdownHook(new Thread(new ShutdownHook()));
             this._semaphore.acquire();
@@ -16,10 +16,18 @@ import uapi.service.annotation.Inject;
 import uapi.service.annotation.Service;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The service hold one or more than one parsers
+ * The resolved parsers are cached by input and output type and by name, the cache
+ * is rebuilt on next lookup when a new parser is injected.
  */
 @Service
 public class ConfigValueParsers {
@@ -27,11 +35,21 @@ public class ConfigValueParsers {
     @Inject
     List<IConfigValueParser> _parsers = new ArrayList<>();
 
+    private final Map<String, Map<String, IConfigValueParser>> _typedParsers = new ConcurrentHashMap<>();
+    private volatile Map<String, IConfigValueParser> _namedParsers = Collections.emptyMap();
+    private volatile int _cachedCount = 0;
+
     public IConfigValueParser findParser(String inType, String outType) {
         ArgumentChecker.notEmpty(inType, "inType");
         ArgumentChecker.notEmpty(outType, "outType");
+        checkCache();
+        Map<String, IConfigValueParser> outParsers = this._typedParsers.get(inType);
+        IConfigValueParser parser = outParsers == null ? null : outParsers.get(outType);
+        if (parser != null) {
+            return parser;
+        }
         List<IConfigValueParser> matcheds = Observable.from(this._parsers)
-                .filter(parser -> parser.isSupport(inType, outType))
+                .filter(matched -> matched.isSupport(inType, outType))
                 .toList().toBlocking().single();
         if (matcheds == null || matcheds.size() == 0) {
             throw new KernelException("No parser for in type {} and out type {}",
@@ -41,13 +59,20 @@ public class ConfigValueParsers {
             throw new KernelException("Found more than one parser for in type {} and out type: {}",
                     inType, outType, matcheds);
         }
-        return matcheds.get(0);
+        parser = matcheds.get(0);
+        this._typedParsers.computeIfAbsent(inType, key -> new ConcurrentHashMap<>()).put(outType, parser);
+        return parser;
     }
 
     public IConfigValueParser findParser(String name) {
         ArgumentChecker.notEmpty(name, "name");
+        checkCache();
+        IConfigValueParser parser = this._namedParsers.get(name);
+        if (parser != null) {
+            return parser;
+        }
         List<IConfigValueParser> matches = Observable.from(this._parsers)
-                .filter(parser -> parser.getName().equals(name))
+                .filter(matched -> matched.getName().equals(name))
                 .toList().toBlocking().single();
         if (matches == null || matches.size() == 0) {
             throw new KernelException("No parser with name {}", name);
@@ -58,4 +83,31 @@ public class ConfigValueParsers {
         }
         return matches.get(0);
     }
+
+    /**
+     * Clear the cache and index parsers by name if new parser was injected
+     */
+    private void checkCache() {
+        int count = this._parsers.size();
+        if (count == this._cachedCount) {
+            return;
+        }
+        synchronized (this) {
+            if (count == this._cachedCount) {
+                return;
+            }
+            this._typedParsers.clear();
+            Map<String, IConfigValueParser> namedParsers = new HashMap<>();
+            Set<String> duplicatedNames = new HashSet<>();
+            this._parsers.forEach(parser -> {
+                if (namedParsers.put(parser.getName(), parser) != null) {
+                    duplicatedNames.add(parser.getName());
+                }
+            });
+            // Duplicated name is reported by the lookup
+            duplicatedNames.forEach(namedParsers::remove);
+            this._namedParsers = namedParsers;
+            this._cachedCount = count;
+        }
+    }
 }
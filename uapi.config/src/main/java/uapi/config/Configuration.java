@@ -9,71 +9,131 @@
 
 package uapi.config;
 
-import rx.Observable;
-import uapi.InvalidArgumentException;
 import uapi.KernelException;
 import uapi.helper.ArgumentChecker;
+import uapi.helper.Guarder;
 import uapi.helper.StringHelper;
+import uapi.log.ILogger;
 import uapi.service.IServiceReference;
 import uapi.service.internal.QualifiedServiceId;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
 
 /**
  * The Configuration hold at least one config value and store as a tree structure
+ *
+ * The tree is immutable, an update copies the nodes on the updated paths into a new
+ * version of the tree and shares other nodes with the current version, then the new
+ * version is published by replacing the root atomically.
+ * A Configuration is a handle of a path in the tree, the read methods never lock, they
+ * load the current version of the tree once and read it, so a reader always sees all
+ * paths of an update applied or none of them.
+ * The write methods are serialized by the root.
+ * A path is split into interned keys once and cached, the cache is bounded so the paths
+ * which are looked up after the cache is full are split on each call.
  */
 public class Configuration {
 
     public static final String ROOT_KEY                 = "/";
-    private static final String PATH_SEPARATOR_PATTERN  = "\\.";
-    private static final String PATH_SEPARATOR          = ".";
+    private static final char PATH_SEPARATOR            = '.';
+    private static final int MAX_COMPILED_PATHS         = 4096;
+
+    private static final ConcurrentMap<String, String[]> _compiledPaths = new ConcurrentHashMap<>();
 
     public static Configuration createRoot() {
         return new Configuration();
     }
 
-    private final Configuration _parent;
-    private final String _key;
-    private Object _value;
-    private final Map<QualifiedServiceId, WeakReference<IServiceReference>> _configuableSvcs;
-    private final Map<String, Configuration> _children;
+    /**
+     * Split the path into keys, the keys are interned and the result is cached until
+     * the cache is full. The returned array must not be modified.
+     *
+     * @param   path
+     *          The path, like a.b.c
+     * @return  The keys of the path
+     */
+    public static String[] compilePath(final String path) {
+        ArgumentChecker.notEmpty(path, "path");
+        String[] keys = _compiledPaths.get(path);
+        if (keys != null) {
+            return keys;
+        }
+        keys = splitPath(path);
+        if (_compiledPaths.size() < MAX_COMPILED_PATHS) {
+            String[] existing = _compiledPaths.putIfAbsent(path, keys);
+            if (existing != null) {
+                keys = existing;
+            }
+        }
+        return keys;
+    }
 
-    public Configuration(final Configuration parent, final String key) {
-        this(parent, key, null, null);
+    private static String[] splitPath(final String path) {
+        List<String> keys = new ArrayList<>();
+        int start = 0;
+        int end;
+        while ((end = path.indexOf(PATH_SEPARATOR, start)) >= 0) {
+            if (end > start) {
+                keys.add(path.substring(start, end).intern());
+            }
+            start = end + 1;
+        }
+        if (start < path.length()) {
+            keys.add(path.substring(start).intern());
+        }
+        return keys.toArray(new String[keys.size()]);
     }
 
-    Configuration(
-            final Configuration parent,
-            final String key,
-            final Object value,
-            final IServiceReference serviceReference
-    ) throws InvalidArgumentException {
+    private final Configuration _root;
+    private final String _key;
+    private final String _fullPath;
+    private final String[] _keys;
+    // Only root node maintains the tree, the bindings and the logger
+    private final AtomicReference<Snapshot> _snapshot;
+    private final Guarder _writeGuarder;
+    private final Map<String, Map<QualifiedServiceId, WeakReference<IServiceReference>>> _configuableSvcs;
+    private volatile ILogger _logger;
+
+    public Configuration(final Configuration parent, final String key) {
         ArgumentChecker.notNull(parent, "parent");
         ArgumentChecker.notEmpty(key, "key");
         ArgumentChecker.notContains(key, ROOT_KEY, "key");
-        this._parent = parent;
-        this._key = key;
-        this._value = value;
-        this._configuableSvcs = new HashMap<>();
-        if (serviceReference != null) {
-            this._configuableSvcs.put(serviceReference.getQualifiedId(), new WeakReference<>(serviceReference));
-        }
-        this._children = new HashMap<>();
+        this._root = parent._root;
+        this._key = key.intern();
+        this._fullPath = parent.isRoot() ? this._key : parent._fullPath + PATH_SEPARATOR + this._key;
+        this._keys = new String[parent._keys.length + 1];
+        System.arraycopy(parent._keys, 0, this._keys, 0, parent._keys.length);
+        this._keys[parent._keys.length] = this._key;
+        this._snapshot = null;
+        this._writeGuarder = null;
+        this._configuableSvcs = null;
     }
 
     /**
      * Only for creating root configuration
      */
     private Configuration() {
-        this._parent = null;
+        this._root = this;
         this._key = ROOT_KEY;
-        // For root node, not configurable service can be bind on it.
-        this._configuableSvcs = null;
-        this._children = new HashMap<>();
+        this._fullPath = StringHelper.EMPTY;
+        this._keys = new String[0];
+        this._snapshot = new AtomicReference<>(new Snapshot(0, Node.EMPTY));
+        this._writeGuarder = Guarder.by(new ReentrantLock());
+        this._configuableSvcs = new HashMap<>();
     }
 
     public String getKey() {
@@ -81,61 +141,94 @@ public class Configuration {
     }
 
     public boolean isRoot() {
-        return this._parent == null && this._key.equals(ROOT_KEY);
+        return this._root == this;
     }
 
     public Object getValue() {
-        if (this._value != null) {
-            return this._value;
-        }
-        if (this._children.size() > 0) {
-            return this._children;
-        }
-        return null;
+        return valueOf(Node.find(this._root._snapshot.get()._node, this._keys, 0));
     }
 
     public Class<?> getValueType() {
-        if (this._value != null) {
-            return this._value.getClass();
+        Node node = Node.find(this._root._snapshot.get()._node, this._keys, 0);
+        if (node != null && node._value != null) {
+            return node._value.getClass();
         }
         return null;
     }
 
     public Object getValue(final String path) {
-        ArgumentChecker.notEmpty(path, "path");
-        String[] steps = path.split(PATH_SEPARATOR_PATTERN);
-        Configuration config = this;
-        for (String step : steps) {
-            if (config == null) {
-                return null;
-            }
-            config = config.getChild(step);
+        String[] keys = compilePath(path);
+        Node node = Node.find(this._root._snapshot.get()._node, this._keys, 0);
+        node = Node.find(node, keys, 0);
+        if (node == null || node._value != null) {
+            return node == null ? null : node._value;
         }
-        return config.getValue();
+        return handle(keys).valueOf(node);
     }
 
-    @SuppressWarnings("unchecked")
-    public void setValue(final Object value) {
-        if (value instanceof Map) {
-            setValue((Map<String, Object>) value);
-        }
-        this._value = value;
+    /**
+     * Find the node on specific path under this node.
+     * The found node is a handle of the path, it can be kept to read the latest
+     * value on the path.
+     *
+     * @param   path
+     *          The path related with this node
+     * @return  The node or null if no node on the path
+     */
+    public Configuration find(final String path) {
+        String[] keys = compilePath(path);
+        Node node = Node.find(this._root._snapshot.get()._node, this._keys, 0);
+        return Node.find(node, keys, 0) == null ? null : handle(keys);
+    }
 
-        Observable.from(this._configuableSvcs.values())
-                .filter(ref -> ref.get() != null)
-                .map(WeakReference::get)
-                .doOnNext(svcRef -> ((IConfigurable) svcRef.getService()).config(getFullPath(), value))
-                .subscribe(IServiceReference::notifySatisfied, t -> t.printStackTrace());
-        cleanNullReference();
+    /**
+     * Set value on this node, the configurable services bound on this node are
+     * notified only when the value is not equal to current value.
+     * If the value is a map then it is set on child nodes as well, each child
+     * notifies its own bound services if its value is changed.
+     * The value which is absent in new map is kept.
+     *
+     * The whole value is applied to a new version of the tree and the version is
+     * published atomically, then the notification of the whole value is batched:
+     * <ul>
+     *     <li>No service is notified before the new version is published</li>
+     *     <li>A service which is bound on more changed paths receives one batched
+     *         config(Map) call which contains all its changed paths and values, then
+     *         it is notified as satisfied once</li>
+     *     <li>Services are notified by the order of their first changed path, a child
+     *         path is notified before its parent path</li>
+     *     <li>A service which is failed on notification does not stop other services
+     *         to be notified, the failure is reported to the logger of the tree</li>
+     * </ul>
+     *
+     * @param   value
+     *          The new value
+     */
+    public void setValue(final Object value) {
+        update(this._keys, node -> node.apply(value));
     }
 
     public void setValue(final Map<String, Object> configMap) {
         ArgumentChecker.notNull(configMap, "configMap");
+        update(this._keys, node -> node.merge(configMap));
+    }
 
-        Observable.from(configMap.entrySet()).subscribe(entry -> {
-            Configuration config = getOrCreateChild(entry.getKey());
-            config.setValue(entry.getValue());
-        });
+    /**
+     * Replace the values which were set by the old map with the new map, the paths
+     * which are in the old map but absent in the new map are removed from the tree,
+     * other paths are set as {@link #setValue(Map)} does.
+     * The configurable services bound on the removed paths are notified by
+     * {@link IConfigurable#removeConfig(Collection)} in the same batch.
+     *
+     * @param   oldConfigMap
+     *          The map which was set on this node
+     * @param   configMap
+     *          The new map
+     */
+    public void replaceValue(final Map<String, Object> oldConfigMap, final Map<String, Object> configMap) {
+        ArgumentChecker.notNull(oldConfigMap, "oldConfigMap");
+        ArgumentChecker.notNull(configMap, "configMap");
+        update(this._keys, node -> node.replace(oldConfigMap, configMap));
     }
 
     public void setValue(final List<Object> configList) {
@@ -147,107 +240,400 @@ public class Configuration {
         ArgumentChecker.notEmpty(path, "path");
         ArgumentChecker.notNull(value, "value");
 
-        Configuration config = getOrCreateChild(path);
-        config.setValue(value);
+        handle(compilePath(path)).setValue(value);
+    }
+
+    /**
+     * Set the logger which receives the failures on notifying configurable services.
+     * If no logger is set, the failures are thrown after all services are notified.
+     *
+     * @param   logger
+     *          The logger
+     */
+    public void setLogger(final ILogger logger) {
+        ArgumentChecker.notNull(logger, "logger");
+        this._root._logger = logger;
+    }
+
+    /**
+     * Return the version of the tree, the version is increased when an update
+     * transaction is applied on the tree.
+     *
+     * @return  The tree version
+     */
+    public long getVersion() {
+        return this._root._snapshot.get()._version;
     }
 
     public boolean bindConfigurable(final IServiceReference serviceRef) {
         ArgumentChecker.notNull(serviceRef, "serviceRef");
-
-        String path = getFullPath();
-        if (this._configuableSvcs.containsKey(serviceRef.getQualifiedId())) {
-            if (this._value != null) {
-                return true;
-            }
-            return ((IConfigurable) serviceRef.getService()).isOptionalConfig(path);
-        }
-        IConfigurable cfg = ((IConfigurable) serviceRef.getService());
-        this._configuableSvcs.put(serviceRef.getQualifiedId(), new WeakReference<>(serviceRef));
-        if (this._value != null) {
-            cfg.config(path, this._value);
-            return true;
-        } else if (this._children.size() > 0) {
-            cfg.config(path, this._children);
-            return true;
-        } else {
-            return cfg.isOptionalConfig(path);
+        Map<String, Object> configs = new LinkedHashMap<>();
+        boolean isConfigured = bindConfigurable(serviceRef, configs);
+        if (configs.size() > 0) {
+            ((IConfigurable) serviceRef.getService()).config(configs);
         }
+        return isConfigured;
     }
 
     public boolean bindConfigurable(final String path, final IServiceReference serviceRef) {
         ArgumentChecker.notEmpty(path, "path");
         ArgumentChecker.notNull(serviceRef, "serviceRef");
 
-        Configuration config = getOrCreateChild(path);
-        return config.bindConfigurable(serviceRef);
+        return handle(compilePath(path)).bindConfigurable(serviceRef);
+    }
+
+    /**
+     * Bind the configurable service on specific path, the current value on the path
+     * is put into the configs instead of being set to the service, so the caller
+     * can bind more paths and set all values to the service by one batched call.
+     *
+     * @param   path
+     *          The path which the service is bound on
+     * @param   serviceRef
+     *          The configurable service
+     * @param   configs
+     *          The map which receives the current value on the path
+     * @return  true means the path is configured or the config is optional
+     */
+    public boolean bindConfigurable(
+            final String path,
+            final IServiceReference serviceRef,
+            final Map<String, Object> configs
+    ) {
+        ArgumentChecker.notEmpty(path, "path");
+        ArgumentChecker.notNull(serviceRef, "serviceRef");
+        ArgumentChecker.notNull(configs, "configs");
+
+        return handle(compilePath(path)).bindConfigurable(serviceRef, configs);
+    }
+
+    private boolean bindConfigurable(final IServiceReference serviceRef, final Map<String, Object> configs) {
+        String path = getFullPath();
+        // The bindings is guarded by the write lock so no update is missed between binding and reading
+        return this._root._writeGuarder.runForResult(() -> {
+            Map<QualifiedServiceId, WeakReference<IServiceReference>> svcs =
+                    this._root._configuableSvcs.computeIfAbsent(path, key -> new HashMap<>());
+            boolean isBound = svcs.containsKey(serviceRef.getQualifiedId());
+            if (! isBound) {
+                svcs.put(serviceRef.getQualifiedId(), new WeakReference<>(serviceRef));
+            }
+            Object value = getValue();
+            if (value != null) {
+                if (! isBound) {
+                    configs.put(path, value);
+                }
+                return true;
+            } else {
+                return ((IConfigurable) serviceRef.getService()).isOptionalConfig(path);
+            }
+        });
     }
 
     public Configuration getChild(String key) {
         ArgumentChecker.notEmpty(key, "key");
-        if (this._children == null) {
-            throw new KernelException("The configuration[{}] can't has child", this._key);
-        }
-        return this._children.get(key);
+        Node node = Node.find(this._root._snapshot.get()._node, this._keys, 0);
+        return node == null || ! node._children.containsKey(key) ? null : new Configuration(this, key);
     }
 
+    /**
+     * Replace the child node by a node which only holds the value.
+     *
+     * @param   key
+     *          The key of the child
+     * @param   value
+     *          The value of the child
+     * @return  The child node
+     */
     public Configuration setChild(String key, Object value) {
         ArgumentChecker.notEmpty(key, "key");
         ArgumentChecker.notNull(value, "value");
-        if (this._children == null) {
-            throw new KernelException("The configuration[{}] can't attach child", this._key);
-        }
-        Configuration child = new Configuration(this, key, value, null);
-        this._children.put(key, child);
+        Configuration child = new Configuration(this, key);
+        update(child._keys, node -> new Node(value, Collections.emptyMap()));
         return child;
     }
 
+    /**
+     * Replace the child node by an empty node.
+     *
+     * @param   key
+     *          The key of the child
+     * @return  The child node
+     */
     public Configuration setChild(String key) {
         ArgumentChecker.notEmpty(key, "key");
-        if (this._children == null) {
-            throw new KernelException("The configuration[{}] can't attach child", this._key);
-        }
         Configuration child = new Configuration(this, key);
-        this._children.put(key, child);
+        update(child._keys, node -> Node.EMPTY);
         return child;
     }
 
     public String getFullPath() {
-        StringBuilder buffer = new StringBuilder();
-        boolean isRoot = isRoot();
-        Configuration cfg = this;
-        while (! isRoot) {
-            buffer.insert(0, cfg._key).insert(0, PATH_SEPARATOR);
-            cfg = cfg._parent;
-            isRoot = cfg.isRoot();
+        return this._fullPath;
+    }
+
+    private Object valueOf(final Node node) {
+        if (node == null) {
+            return null;
         }
-        if (buffer.length() > 0) {
-            return buffer.deleteCharAt(0).toString();
-        } else {
-            return StringHelper.EMPTY;
+        if (node._value != null) {
+            return node._value;
         }
+        if (node._children.size() > 0) {
+            Map<String, Configuration> children = new LinkedHashMap<>();
+            node._children.keySet().forEach(key -> children.put(key, new Configuration(this, key)));
+            return children;
+        }
+        return null;
     }
 
-    private Configuration getOrCreateChild(final String path) {
-        ArgumentChecker.notEmpty(path, "path");
-        String[] steps = path.split(PATH_SEPARATOR_PATTERN);
+    private Configuration handle(final String[] keys) {
         Configuration config = this;
-        for (String step : steps) {
-            Configuration child = config.getChild(step);
+        for (String key : keys) {
+            config = new Configuration(config, key);
+        }
+        return config;
+    }
+
+    /**
+     * Apply the updater on the node of the path in a new version of the tree, publish
+     * the version and notify the services which are bound on the changed paths.
+     */
+    private void update(final String[] keys, final UnaryOperator<Node> updater) {
+        Configuration root = this._root;
+        root._writeGuarder.run(() -> {
+            Snapshot current = root._snapshot.get();
+            Node updated = current._node.set(keys, 0, updater);
+            if (updated == current._node) {
+                return;
+            }
+            ConfigChanges changes = root.new ConfigChanges();
+            changes.diff(StringHelper.EMPTY, current._node, updated);
+            root._snapshot.set(new Snapshot(current._version + 1, updated));
+            changes.commit();
+        });
+    }
+
+    /**
+     * A version of the tree
+     */
+    private static final class Snapshot {
+
+        private final long _version;
+        private final Node _node;
+
+        private Snapshot(final long version, final Node node) {
+            this._version = version;
+            this._node = node;
+        }
+    }
+
+    /**
+     * An immutable node of the tree, an update returns a new node which shares the
+     * children which are not changed, a null node means the node is removed.
+     */
+    private static final class Node {
+
+        private static final Node EMPTY = new Node(null, Collections.emptyMap());
+
+        private static Node find(final Node from, final String[] keys, final int index) {
+            Node node = from;
+            for (int i = index; i < keys.length && node != null; i++) {
+                node = node._children.get(keys[i]);
+            }
+            return node;
+        }
+
+        private final Object _value;
+        private final Map<String, Node> _children;
+
+        private Node(final Object value, final Map<String, Node> children) {
+            this._value = value;
+            this._children = children;
+        }
+
+        private static boolean isConfigured(final Node node) {
+            return node != null && (node._value != null || node._children.size() > 0);
+        }
+
+        private Node set(final String[] keys, final int index, final UnaryOperator<Node> updater) {
+            if (index == keys.length) {
+                return updater.apply(this);
+            }
+            Node child = this._children.get(keys[index]);
+            Node updated = (child == null ? EMPTY : child).set(keys, index + 1, updater);
+            if (updated == child || (updated == null && child == null)) {
+                return this;
+            }
+            Map<String, Node> children = new LinkedHashMap<>(this._children);
+            putChild(children, keys[index], updated);
+            return new Node(this._value, Collections.unmodifiableMap(children));
+        }
+
+        private void putChild(final Map<String, Node> children, final String key, final Node child) {
             if (child == null) {
-                config = config.setChild(step);
+                children.remove(key);
             } else {
-                config = child;
+                children.put(key, child);
             }
         }
-        return config;
+
+        @SuppressWarnings("unchecked")
+        private Node apply(final Object value) {
+            Node node = this;
+            if (value instanceof Map) {
+                node = merge((Map<String, Object>) value);
+            }
+            return node.withValue(value);
+        }
+
+        private Node merge(final Map<String, Object> configMap) {
+            if (configMap.size() == 0) {
+                return this;
+            }
+            // Copy the children map once for all keys instead of copying it for each key
+            Map<String, Node> children = new LinkedHashMap<>(this._children);
+            configMap.forEach((path, value) -> {
+                String[] keys = compilePath(path);
+                Node child = children.get(keys[0]);
+                children.put(keys[0], (child == null ? EMPTY : child).set(keys, 1, node -> node.apply(value)));
+            });
+            return new Node(this._value, Collections.unmodifiableMap(children));
+        }
+
+        @SuppressWarnings("unchecked")
+        private Node replace(final Map<String, Object> oldConfigMap, final Map<String, Object> configMap) {
+            Map<String, Node> children = new LinkedHashMap<>(this._children);
+            oldConfigMap.keySet().stream().filter(path -> ! configMap.containsKey(path)).forEach(path -> {
+                String[] keys = compilePath(path);
+                Node child = children.get(keys[0]);
+                if (child != null) {
+                    putChild(children, keys[0], keys.length == 1 ? null : child.set(keys, 1, node -> null));
+                }
+            });
+            configMap.forEach((path, value) -> {
+                Object oldValue = oldConfigMap.get(path);
+                UnaryOperator<Node> updater;
+                if (oldValue instanceof Map && value instanceof Map) {
+                    updater = node -> node.replace((Map<String, Object>) oldValue, (Map<String, Object>) value).withValue(value);
+                } else {
+                    updater = node -> node.apply(value);
+                }
+                String[] keys = compilePath(path);
+                Node child = children.get(keys[0]);
+                putChild(children, keys[0], (child == null ? EMPTY : child).set(keys, 1, updater));
+            });
+            return new Node(this._value, Collections.unmodifiableMap(children));
+        }
+
+        private Node withValue(final Object value) {
+            return Objects.equals(this._value, value) ? this : new Node(value, this._children);
+        }
     }
 
-    private void cleanNullReference() {
-        Iterator<Map.Entry<QualifiedServiceId, WeakReference<IServiceReference>>> it = this._configuableSvcs.entrySet().iterator();
-        while (it.hasNext()) {
-            if (it.next().getValue().get() == null) {
-                it.remove();
+    /**
+     * The changes which are collected in an update transaction, grouped by service
+     */
+    private final class ConfigChanges {
+
+        private final Map<QualifiedServiceId, ServiceChanges> _changes = new LinkedHashMap<>();
+
+        /**
+         * Collect the changed values between two versions of a node, the children are
+         * collected before the node itself and the shared nodes are skipped.
+         */
+        private void diff(final String path, final Node oldNode, final Node newNode) {
+            if (oldNode == newNode) {
+                return;
             }
+            Map<String, Node> oldChildren = oldNode == null ? Collections.emptyMap() : oldNode._children;
+            Map<String, Node> newChildren = newNode == null ? Collections.emptyMap() : newNode._children;
+            newChildren.forEach((key, child) -> diff(childPath(path, key), oldChildren.get(key), child));
+            oldChildren.forEach((key, child) -> {
+                if (! newChildren.containsKey(key)) {
+                    diff(childPath(path, key), child, null);
+                }
+            });
+            Object oldValue = oldNode == null ? null : oldNode._value;
+            Object newValue = newNode == null ? null : newNode._value;
+            if (newValue != null) {
+                if (! Objects.equals(oldValue, newValue)) {
+                    add(path, newValue);
+                }
+            } else if (Node.isConfigured(oldNode) && ! Node.isConfigured(newNode)) {
+                add(path, null);
+            }
+        }
+
+        private String childPath(final String path, final String key) {
+            return path.isEmpty() ? key : path + PATH_SEPARATOR + key;
+        }
+
+        private void add(final String path, final Object value) {
+            Map<QualifiedServiceId, WeakReference<IServiceReference>> svcs = Configuration.this._configuableSvcs.get(path);
+            if (svcs == null) {
+                return;
+            }
+            Iterator<WeakReference<IServiceReference>> it = svcs.values().iterator();
+            while (it.hasNext()) {
+                IServiceReference svcRef = it.next().get();
+                if (svcRef == null) {
+                    it.remove();
+                    continue;
+                }
+                ServiceChanges changes = this._changes.computeIfAbsent(
+                        svcRef.getQualifiedId(), key -> new ServiceChanges(svcRef));
+                if (value == null) {
+                    changes._removedPaths.add(path);
+                } else {
+                    changes._configs.put(path, value);
+                }
+            }
+        }
+
+        private void commit() {
+            ILogger logger = Configuration.this._logger;
+            KernelException failure = null;
+            for (ServiceChanges change : this._changes.values()) {
+                IServiceReference svcRef = change._svcRef;
+                try {
+                    IConfigurable configurable = (IConfigurable) svcRef.getService();
+                    if (change._configs.size() > 0) {
+                        configurable.config(change._configs);
+                    }
+                    if (change._removedPaths.size() > 0) {
+                        configurable.removeConfig(change._removedPaths);
+                    }
+                    if (change._configs.size() > 0) {
+                        svcRef.notifySatisfied();
+                    }
+                } catch (Exception ex) {
+                    if (logger != null) {
+                        logger.error(ex, "Set config {} and remove config {} to service {} failed",
+                                change._configs, change._removedPaths, svcRef.getQualifiedId());
+                    } else if (failure == null) {
+                        failure = new KernelException(ex, "Set config {} and remove config {} to service {} failed",
+                                change._configs, change._removedPaths, svcRef.getQualifiedId());
+                    } else {
+                        failure.addSuppressed(ex);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * The changed configs and the removed paths of one service
+     */
+    private static final class ServiceChanges {
+
+        private final IServiceReference _svcRef;
+        private final Map<String, Object> _configs = new LinkedHashMap<>();
+        private final List<String> _removedPaths = new ArrayList<>();
+
+        private ServiceChanges(final IServiceReference svcRef) {
+            this._svcRef = svcRef;
         }
     }
 }
@@ -28,7 +28,9 @@ public interface IConfigTracer {
 
     /**
      * Invoked the config is changed
-     * The map's key is the path of the configuration
+     * The map's key is the path of the configuration, the map contains the whole
+     * configuration of the source, so the paths which were in the previous map of
+     * the source but are absent in this map are removed
      *
      * @param   configMap
      *          The changed configuration map
@@ -9,6 +9,11 @@
 
 package uapi.config;
 
+import uapi.KernelException;
+
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * Created by min on 16/3/6.
  */
@@ -25,4 +30,32 @@ public interface IConfigurable {
     boolean isOptionalConfig(String path);
 
     void config(String path, Object configObject);
+
+    /**
+     * Set more configs in one call, the configuration tree uses it to set all changed
+     * configs of an update to the service at once, so the service never sees partially
+     * applied update.
+     * The default implementation sets each config by the order of the map.
+     *
+     * @param   configs
+     *          The map of config path and config object
+     */
+    default void config(Map<String, Object> configs) {
+        configs.forEach(this::config);
+    }
+
+    /**
+     * Invoked when the configs on the paths are removed from the configuration tree,
+     * like the keys are removed from the reloaded config file.
+     * The default implementation rejects the removal of a required config, the service
+     * keeps the configs which were set on it.
+     *
+     * @param   paths
+     *          The removed config paths
+     */
+    default void removeConfig(Collection<String> paths) {
+        paths.stream().filter(path -> ! isOptionalConfig(path)).findFirst().ifPresent(path -> {
+            throw new KernelException("The required config {} is removed from service {}", path, this);
+        });
+    }
 }
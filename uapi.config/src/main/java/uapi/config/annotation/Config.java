@@ -16,7 +16,7 @@ import java.lang.annotation.*;
 /**
  * Config annotation which is declared as
  */
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 @Target(ElementType.FIELD)
 public @interface Config {
 
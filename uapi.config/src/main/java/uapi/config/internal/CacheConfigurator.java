@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.config.internal;
+
+import uapi.KernelException;
+import uapi.cache.Caches;
+import uapi.config.Configuration;
+import uapi.config.IConfigurable;
+import uapi.helper.ArgumentChecker;
+import uapi.service.annotation.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The service tunes caches which are generated by Cacheable annotation.
+ * The config is a map under cache path, the key is cache name and the value
+ * contains maxSize and/or ttl, for example:
+ *
+ *  cache:
+ *      a.b.Service.find(java.lang.String):
+ *          maxSize: 500
+ *          ttl: 60000
+ *
+ * The cache name may contains dot so the config tree is flatten to restore the name.
+ */
+@Service
+public class CacheConfigurator implements IConfigurable {
+
+    static final String CFG_CACHE       = "cache";
+    static final String CFG_MAX_SIZE    = "maxSize";
+    static final String CFG_TTL         = "ttl";
+
+    private static final String PATH_SEPARATOR  = ".";
+
+    @Override
+    public String[] getPaths() {
+        return new String[] { CFG_CACHE };
+    }
+
+    @Override
+    public boolean isOptionalConfig(String path) {
+        return true;
+    }
+
+    @Override
+    public void config(String path, Object configObject) {
+        ArgumentChecker.notEmpty(path, "path");
+        ArgumentChecker.notNull(configObject, "configObject");
+        if (! CFG_CACHE.equals(path)) {
+            throw new KernelException("The config {} for path {} does not belongs to this service", configObject, path);
+        }
+        Map<String, Object> flatten = new HashMap<>();
+        flatten(null, configObject, flatten);
+        flatten.forEach((key, value) -> {
+            int posDot = key.lastIndexOf(PATH_SEPARATOR);
+            if (posDot <= 0) {
+                throw new KernelException("The cache config {} must be defined under a cache name", key);
+            }
+            String cacheName = key.substring(0, posDot);
+            String option = key.substring(posDot + 1);
+            if (CFG_MAX_SIZE.equals(option)) {
+                Caches.tuneMaxSize(cacheName, Integer.parseInt(value.toString()));
+            } else if (CFG_TTL.equals(option)) {
+                Caches.tuneTtl(cacheName, Long.parseLong(value.toString()));
+            } else {
+                throw new KernelException("Unsupported cache config {} for cache {}", option, cacheName);
+            }
+        });
+    }
+
+    private void flatten(String prefix, Object config, Map<String, Object> flatten) {
+        if (config instanceof Configuration) {
+            flatten(prefix, ((Configuration) config).getValue(), flatten);
+        } else if (config instanceof Map) {
+            ((Map<?, ?>) config).forEach((key, value) -> flatten(
+                    prefix == null ? key.toString() : prefix + PATH_SEPARATOR + key, value, flatten));
+        } else if (config != null && prefix != null) {
+            flatten.put(prefix, config);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.config.internal;
+
+import uapi.KernelException;
+import uapi.helper.ArgumentChecker;
+import uapi.log.ILogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watch a config file and invoke the listener when the file is changed.
+ * A burst of writes is debounced, the listener is invoked once after the file
+ * has not been changed for specific delay.
+ */
+class ConfigFileWatcher {
+
+    private static final long STOP_TIMEOUT  = 1000L;
+
+    private final Path _file;
+    private final long _delay;
+    private final Runnable _listener;
+    private final ILogger _logger;
+    private final WatchService _watchSvc;
+    private final Thread _thread;
+
+    ConfigFileWatcher(
+            final File file,
+            final long delay,
+            final Runnable listener,
+            final ILogger logger
+    ) throws KernelException {
+        ArgumentChecker.notNull(file, "file");
+        ArgumentChecker.notNull(listener, "listener");
+        ArgumentChecker.notNull(logger, "logger");
+        this._file = file.getAbsoluteFile().toPath();
+        this._delay = delay;
+        this._listener = listener;
+        this._logger = logger;
+        try {
+            this._watchSvc = FileSystems.getDefault().newWatchService();
+            this._file.getParent().register(this._watchSvc,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException ex) {
+            throw new KernelException(ex);
+        }
+        this._thread = new Thread(this::watch, "config-watcher-" + this._file.getFileName());
+        this._thread.setDaemon(true);
+    }
+
+    void start() {
+        this._thread.start();
+    }
+
+    /**
+     * Close the watch service and wait the watching thread to exit.
+     * It can be invoked from the listener, in that case the thread exits after the listener returned.
+     */
+    void stop() {
+        try {
+            this._watchSvc.close();
+        } catch (IOException ex) {
+            this._logger.warn(ex, "Close watch service on {} failed", this._file);
+        }
+        if (Thread.currentThread() == this._thread) {
+            return;
+        }
+        this._thread.interrupt();
+        try {
+            this._thread.join(STOP_TIMEOUT);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    boolean isAlive() {
+        return this._thread.isAlive();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = this._watchSvc.take();
+                boolean changed = isFileChanged(key);
+                // Wait until no more change in the delay
+                while (changed && (key = this._watchSvc.poll(this._delay, TimeUnit.MILLISECONDS)) != null) {
+                    isFileChanged(key);
+                }
+                if (changed) {
+                    try {
+                        this._listener.run();
+                    } catch (Exception ex) {
+                        this._logger.error(ex, "Reload config file {} failed", this._file);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ex) {
+            // The watcher is stopped
+        }
+    }
+
+    private boolean isFileChanged(final WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (this._file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
@@ -16,11 +16,14 @@ import rx.Observable;
 import uapi.KernelException;
 import uapi.Type;
 import uapi.annotation.*;
+import uapi.config.ConfigValueParsers;
 import uapi.config.IConfigValueParser;
 import uapi.config.IConfigurable;
 import uapi.config.annotation.Config;
 import uapi.helper.ArgumentChecker;
+import uapi.helper.StringHelper;
 import uapi.service.IRegistry;
+import uapi.service.ServiceHandle;
 import uapi.service.annotation.Inject;
 import uapi.service.annotation.Service;
 
@@ -40,6 +43,9 @@ public class ConfigHandler extends AnnotationsHandler {
     private static final String CONFIG_INFOS                = "ConfigInfos";
     private static final String FIELD_SVC_REG               = "FieldServiceRegistry";
     private static final String IS_FIELD_SVC_REG_DEFINED    = "IsFieldServiceRegistryDefined";
+    private static final String FIELD_PARSERS_HANDLE        = "_configValueParsersHandle";
+    private static final String FIELD_PARSER_PREFIX         = "_configValueParser";
+    private static final String FIELD_PARSER_IN_PREFIX      = "_configValueParserIn";
 
     private static final String TEMPLATE_GET_PATHS          = "template/getPaths_method.ftl";
     private static final String TEMPLATE_IS_OPTIONAL_CONFIG = "template/isOptionalConfig_method.ftl";
@@ -103,9 +109,21 @@ public class ConfigHandler extends AnnotationsHandler {
                 cfgInfo.parserName = parserType;
             }
             cfgInfo.path = cfg.path();
+            // The generated config method dispatches by path, so one path can't be bound to more fields
+            String path = cfgInfo.path;
+            if (cfgInfos.stream().anyMatch(info -> info.path.equals(path))) {
+                throw new KernelException(
+                        "The service {}.{} has duplicated config path {}",
+                        classBuilder.getPackageName(),
+                        classBuilder.getClassName(),
+                        path);
+            }
             cfgInfo.optional = cfg.optional();
             cfgInfo.fieldName = fieldElement.getSimpleName().toString();
             cfgInfo.fieldType = fieldElement.asType().toString();
+            // The parser of each config is resolved once and kept in generated fields
+            cfgInfo.parserField = FIELD_PARSER_PREFIX + cfgInfos.size();
+            cfgInfo.parserInField = FIELD_PARSER_IN_PREFIX + cfgInfos.size();
             cfgInfos.add(cfgInfo);
         });
 
@@ -122,6 +140,22 @@ public class ConfigHandler extends AnnotationsHandler {
             Map<String, Object> tempModel = new HashMap<>();
             tempModel.put("configInfos", configInfos);
             tempModel.put("fieldSvcReg", fieldSvcReg);
+            tempModel.put("fieldParsersHandle", FIELD_PARSERS_HANDLE);
+
+            configInfos.forEach(configInfo -> {
+                classBuilder.addFieldBuilder(FieldMeta.builder()
+                        .addModifier(Modifier.PRIVATE)
+                        .setTypeName(IConfigValueParser.class.getCanonicalName())
+                        .setName(configInfo.parserField)
+                        .setIsList(false));
+                if (! configInfo.hasParser()) {
+                    classBuilder.addFieldBuilder(FieldMeta.builder()
+                            .addModifier(Modifier.PRIVATE)
+                            .setTypeName("java.lang.Class<?>")
+                            .setName(configInfo.parserInField)
+                            .setIsList(false));
+                }
+            });
 
 //            Boolean isFieldSvcRegDef = classBuilder.getTransience(IS_FIELD_SVC_REG_DEFINED);
 //            if (! isFieldSvcRegDef) {
@@ -134,6 +168,12 @@ public class ConfigHandler extends AnnotationsHandler {
 //            }
             classBuilder
                     .addImplement(IConfigurable.class.getCanonicalName())
+                    .addFieldBuilderIfAbsent(FieldMeta.builder()
+                            .addModifier(Modifier.PRIVATE)
+                            .setTypeName(StringHelper.makeString("{}<{}>",
+                                    ServiceHandle.class.getCanonicalName(), ConfigValueParsers.class.getCanonicalName()))
+                            .setName(FIELD_PARSERS_HANDLE)
+                            .setIsList(false))
                     .addMethodBuilder(MethodMeta.builder()
                             .addAnnotationBuilder(AnnotationMeta.builder().setName(AnnotationMeta.OVERRIDE))
                             .addModifier(Modifier.PUBLIC)
@@ -178,6 +218,8 @@ public class ConfigHandler extends AnnotationsHandler {
         private String fieldType;
         private boolean optional;
         private String parserName;
+        private String parserField;
+        private String parserInField;
 
         public String getPath() {
             return this.path;
@@ -199,6 +241,14 @@ public class ConfigHandler extends AnnotationsHandler {
             return this.parserName;
         }
 
+        public String getParserField() {
+            return this.parserField;
+        }
+
+        public String getParserInField() {
+            return this.parserInField;
+        }
+
         public boolean hasParser() {
             return ! ArgumentChecker.isEmpty(this.parserName);
         }
@@ -0,0 +1,440 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.config.internal;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import uapi.KernelException;
+import uapi.config.IConfigFileParser;
+import uapi.helper.ArgumentChecker;
+import uapi.helper.StringHelper;
+import uapi.log.ILogger;
+
+/**
+ * A compiled binary snapshot of a config file, it can be loaded much faster than parsing
+ * the text config file.
+ * The snapshot is stamped with the modified time, length and CRC32 of the source file,
+ * it is treated as out of date when any of them is changed.
+ *
+ * The layout of the snapshot is:
+ * <pre>
+ * header   : magic, version, source modified time, source length, source CRC32
+ * keys     : key count, [key length, UTF-8 bytes]...
+ * nodes    : values are written before the map or list which contains them
+ * trailer  : offset of the root map
+ * </pre>
+ * A map node is an index of key number and value offset pairs, so keys are stored once
+ * and interned when the snapshot is loaded.
+ *
+ * Run this class to compile a config file:
+ * <pre>
+ * java uapi.config.internal.ConfigSnapshot &lt;config file&gt; [snapshot file]
+ * </pre>
+ */
+public final class ConfigSnapshot {
+
+    public static final String SNAPSHOT_FILE_EXT   = ".snapshot";
+
+    private static final int MAGIC          = 0x55434653;
+    private static final int VERSION        = 1;
+    private static final int HEADER_SIZE    = 4 + 4 + 8 + 8 + 8;
+
+    private static final int CHECKSUM_BUFFER_SIZE   = 64 * 1024;
+
+    private static final byte TAG_NULL      = 0;
+    private static final byte TAG_TRUE      = 1;
+    private static final byte TAG_FALSE     = 2;
+    private static final byte TAG_INT       = 3;
+    private static final byte TAG_LONG      = 4;
+    private static final byte TAG_FLOAT     = 5;
+    private static final byte TAG_DOUBLE    = 6;
+    private static final byte TAG_STRING    = 7;
+    private static final byte TAG_MAP       = 8;
+    private static final byte TAG_LIST      = 9;
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: ConfigSnapshot <config file> [snapshot file]");
+            System.exit(1);
+        }
+        File cfgFile = new File(args[0]);
+        File snapshotFile = args.length > 1 ? new File(args[1]) : getSnapshotFile(cfgFile);
+        ConsoleLogger logger = new ConsoleLogger();
+        YamlFileParser yamlParser = new YamlFileParser();
+        yamlParser._logger = logger;
+        JsonFileParser jsonParser = new JsonFileParser();
+        jsonParser._logger = logger;
+
+        String extName = cfgFile.getName().substring(cfgFile.getName().lastIndexOf('.') + 1);
+        IConfigFileParser parser;
+        if (yamlParser.isSupport(extName)) {
+            parser = yamlParser;
+        } else if (jsonParser.isSupport(extName)) {
+            parser = jsonParser;
+        } else {
+            throw new KernelException("No parser associate with extension name {} on config file {}.", extName, cfgFile);
+        }
+        compile(cfgFile, parser, snapshotFile);
+        logger.info("Compiled config file {} to {}", cfgFile, snapshotFile);
+    }
+
+    /**
+     * Get default snapshot file of specific config file, the snapshot file is put
+     * at same directory of the config file
+     *
+     * @param   cfgFile
+     *          The config file
+     * @return  The snapshot file
+     */
+    public static File getSnapshotFile(final File cfgFile) {
+        ArgumentChecker.notNull(cfgFile, "cfgFile");
+        return new File(cfgFile.getPath() + SNAPSHOT_FILE_EXT);
+    }
+
+    /**
+     * Parse the config file and write the parsed configuration to snapshot file
+     *
+     * @param   cfgFile
+     *          The config file
+     * @param   parser
+     *          The parser used to parse the config file
+     * @param   snapshotFile
+     *          The snapshot file which will be written
+     */
+    public static void compile(
+            final File cfgFile,
+            final IConfigFileParser parser,
+            final File snapshotFile) {
+        ArgumentChecker.notNull(cfgFile, "cfgFile");
+        ArgumentChecker.notNull(parser, "parser");
+        ArgumentChecker.notNull(snapshotFile, "snapshotFile");
+        // Stamp the source before parsing it, a change during parsing makes the snapshot out of date
+        long modified = cfgFile.lastModified();
+        long length = cfgFile.length();
+        long checksum = checksum(cfgFile);
+        Map<String, Object> config = parser.parse(cfgFile);
+        if (config == null) {
+            throw new KernelException("No any configuration in the config file {}", cfgFile);
+        }
+
+        Map<String, Integer> keys = new LinkedHashMap<>();
+        collectKeys(config, keys);
+        File tempFile = new File(snapshotFile.getPath() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(modified);
+            output.writeLong(length);
+            output.writeLong(checksum);
+            output.writeInt(keys.size());
+            for (String key : keys.keySet()) {
+                writeString(output, key);
+            }
+            int rootOffset = writeNode(output, config, keys);
+            output.writeInt(rootOffset);
+        } catch (IOException ex) {
+            throw new KernelException(ex, "Write config snapshot {} failed", snapshotFile);
+        }
+        try {
+            Files.move(tempFile.toPath(), snapshotFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new KernelException(ex, "Move config snapshot to {} failed", snapshotFile);
+        }
+    }
+
+    /**
+     * Load configuration from snapshot file
+     *
+     * @param   cfgFile
+     *          The config file which the snapshot was compiled from
+     * @param   snapshotFile
+     *          The snapshot file
+     * @return  The configuration map or null if the snapshot is out of date
+     * @throws  KernelException
+     *          The snapshot can't be read or it is corrupted
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> load(
+            final File cfgFile,
+            final File snapshotFile
+    ) throws KernelException {
+        ArgumentChecker.notNull(cfgFile, "cfgFile");
+        ArgumentChecker.notNull(snapshotFile, "snapshotFile");
+        ByteBuffer buffer = read(snapshotFile);
+        if (buffer.limit() < HEADER_SIZE) {
+            throw new KernelException("The config snapshot {} is corrupted", snapshotFile);
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new KernelException("The file {} is not a config snapshot", snapshotFile);
+            }
+            if (buffer.getLong() != cfgFile.lastModified() || buffer.getLong() != cfgFile.length()) {
+                return null;
+            }
+            if (buffer.getLong() != checksum(cfgFile)) {
+                return null;
+            }
+            String[] keys = new String[buffer.getInt()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = readString(buffer).intern();
+            }
+            int rootOffset = buffer.getInt(buffer.limit() - 4);
+            Object root = readNode(buffer, rootOffset, keys);
+            if (! (root instanceof Map)) {
+                throw new KernelException("The root of config snapshot {} is not a map", snapshotFile);
+            }
+            return (Map<String, Object>) root;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+            throw new KernelException(ex, "The config snapshot {} is corrupted", snapshotFile);
+        }
+    }
+
+    /**
+     * Read the snapshot into a heap buffer, the snapshot is not mapped since the mapping
+     * is held until the buffer is collected, the decoded configuration does not reference
+     * the buffer so it can be collected once the loading is done
+     */
+    private static ByteBuffer read(final File file) {
+        try {
+            return ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        } catch (IOException ex) {
+            throw new KernelException(ex, "Read file {} failed", file);
+        }
+    }
+
+    /**
+     * Calculate CRC32 of the source file by streaming it, the source file is not mapped
+     * since the mapping is held until it is collected and it prevents the file from
+     * being edited on some platforms
+     */
+    private static long checksum(final File file) {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[CHECKSUM_BUFFER_SIZE];
+        try (InputStream input = Files.newInputStream(file.toPath())) {
+            int count;
+            while ((count = input.read(buffer)) > 0) {
+                crc.update(buffer, 0, count);
+            }
+        } catch (IOException ex) {
+            throw new KernelException(ex, "Read file {} failed", file);
+        }
+        return crc.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void collectKeys(final Object value, final Map<String, Integer> keys) {
+        if (value instanceof Map) {
+            ((Map<Object, Object>) value).forEach((key, subValue) -> {
+                if (! (key instanceof String)) {
+                    throw new KernelException("The config key {} is not a string", key);
+                }
+                keys.putIfAbsent((String) key, keys.size());
+                collectKeys(subValue, keys);
+            });
+        } else if (value instanceof List) {
+            ((List<Object>) value).forEach(item -> collectKeys(item, keys));
+        }
+    }
+
+    /**
+     * Write the node and return its offset, the sub nodes are written before it
+     */
+    @SuppressWarnings("unchecked")
+    private static int writeNode(
+            final DataOutputStream output,
+            final Object value,
+            final Map<String, Integer> keys
+    ) throws IOException {
+        if (value instanceof Map) {
+            Map<String, Object> map = (Map<String, Object>) value;
+            List<int[]> entries = new ArrayList<>(map.size());
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                entries.add(new int[] { keys.get(entry.getKey()), writeNode(output, entry.getValue(), keys) });
+            }
+            int offset = output.size();
+            output.writeByte(TAG_MAP);
+            output.writeInt(entries.size());
+            for (int[] entry : entries) {
+                output.writeInt(entry[0]);
+                output.writeInt(entry[1]);
+            }
+            return offset;
+        }
+        if (value instanceof List) {
+            List<Object> list = (List<Object>) value;
+            int[] offsets = new int[list.size()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = writeNode(output, list.get(i), keys);
+            }
+            int offset = output.size();
+            output.writeByte(TAG_LIST);
+            output.writeInt(offsets.length);
+            for (int itemOffset : offsets) {
+                output.writeInt(itemOffset);
+            }
+            return offset;
+        }
+
+        int offset = output.size();
+        if (value == null) {
+            output.writeByte(TAG_NULL);
+        } else if (value instanceof Boolean) {
+            output.writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            output.writeByte(TAG_INT);
+            output.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            output.writeByte(TAG_LONG);
+            output.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            output.writeByte(TAG_FLOAT);
+            output.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            output.writeByte(TAG_DOUBLE);
+            output.writeDouble((Double) value);
+        } else if (value instanceof String) {
+            output.writeByte(TAG_STRING);
+            writeString(output, (String) value);
+        } else {
+            throw new KernelException("Unsupported config value type {} of value {}",
+                    value.getClass().getName(), value);
+        }
+        return offset;
+    }
+
+    private static Object readNode(final ByteBuffer buffer, final int offset, final String[] keys) {
+        buffer.position(offset);
+        byte tag = buffer.get();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_INT:
+                return buffer.getInt();
+            case TAG_LONG:
+                return buffer.getLong();
+            case TAG_FLOAT:
+                return buffer.getFloat();
+            case TAG_DOUBLE:
+                return buffer.getDouble();
+            case TAG_STRING:
+                return readString(buffer);
+            case TAG_MAP:
+                int size = buffer.getInt();
+                Map<String, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+                for (int i = 0; i < size; i++) {
+                    int entryOffset = offset + 5 + i * 8;
+                    map.put(keys[buffer.getInt(entryOffset)], readNode(buffer, buffer.getInt(entryOffset + 4), keys));
+                }
+                return map;
+            case TAG_LIST:
+                int count = buffer.getInt();
+                List<Object> list = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    list.add(readNode(buffer, buffer.getInt(offset + 5 + i * 4), keys));
+                }
+                return list;
+            default:
+                throw new KernelException("Unknown config snapshot tag {} at offset {}", tag, offset);
+        }
+    }
+
+    private static void writeString(final DataOutputStream output, final String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private ConfigSnapshot() { }
+
+    /**
+     * The logger used by the parsers when the snapshot is compiled by command line
+     */
+    private static final class ConsoleLogger implements ILogger {
+
+        @Override
+        public void trace(String message, Object... parameters) {
+            print(null, message, parameters);
+        }
+
+        @Override
+        public void debug(String message, Object... parameters) {
+            print(null, message, parameters);
+        }
+
+        @Override
+        public void info(String message, Object... parameters) {
+            print(null, message, parameters);
+        }
+
+        @Override
+        public void warn(String message, Object... parameters) {
+            print(null, message, parameters);
+        }
+
+        @Override
+        public void warn(Throwable t) {
+            print(t, "", new Object[0]);
+        }
+
+        @Override
+        public void warn(Throwable t, String message, Object... parameters) {
+            print(t, message, parameters);
+        }
+
+        @Override
+        public void error(String message, Object... parameters) {
+            print(null, message, parameters);
+        }
+
+        @Override
+        public void error(Throwable t) {
+            print(t, "", new Object[0]);
+        }
+
+        @Override
+        public void error(Throwable t, String message, Object... parameters) {
+            print(t, message, parameters);
+        }
+
+        private void print(Throwable t, String message, Object[] parameters) {
+            System.err.println(StringHelper.makeString(message, parameters));
+            if (t != null) {
+                t.printStackTrace();
+            }
+        }
+    }
+}
@@ -13,33 +13,45 @@ import uapi.config.Configuration;
 import uapi.config.IConfigTracer;
 import uapi.config.IConfigurable;
 import uapi.helper.ArgumentChecker;
+import uapi.log.ILogger;
 import uapi.service.ISatisfyHook;
 import uapi.service.IServiceReference;
 import uapi.service.annotation.Init;
+import uapi.service.annotation.Inject;
 import uapi.service.annotation.Service;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * A Configurator manage all configuration and configurable service list and
  * set configuration into related configurable service.
+ * The configuration may be changed by config file reloading thread, so access
+ * to the configuration tree is serialized.
  */
 @Service({ ISatisfyHook.class, IConfigTracer.class })
 class Configurator implements ISatisfyHook, IConfigTracer {
 
+    @Inject
+    ILogger _logger;
+
     private final Configuration _rootConfig;
 
+    private Map<String, Object> _lastConfigMap = Collections.emptyMap();
+
     Configurator() {
         this._rootConfig = Configuration.createRoot();
     }
 
     @Init
     public void init() {
+        this._rootConfig.setLogger(this._logger);
 //        Observable.from(this._configProviders).subscribe(provider -> provider.setTracer(this._configTracer));
     }
 
     @Override
-    public boolean isSatisfied(IServiceReference serviceRef) {
+    public synchronized boolean isSatisfied(IServiceReference serviceRef) {
         ArgumentChecker.notNull(serviceRef, "serviceRef");
         if (! (serviceRef.getService() instanceof IConfigurable)) {
             return true;
@@ -47,21 +59,27 @@ class Configurator implements ISatisfyHook, IConfigTracer {
         IConfigurable configurableSvc = (IConfigurable) serviceRef.getService();
         String[] paths = configurableSvc.getPaths();
         boolean isConfigured = true;
+        // Set all bound configs into the service by one call
+        Map<String, Object> configs = new LinkedHashMap<>();
         for (String path : paths) {
-            if (! this._rootConfig.bindConfigurable(path, serviceRef)) {
+            if (! this._rootConfig.bindConfigurable(path, serviceRef, configs)) {
                 isConfigured = false;
             }
         }
+        if (configs.size() > 0) {
+            configurableSvc.config(configs);
+        }
         return isConfigured;
     }
 
     @Override
-    public void onChange(String path, Object config) {
+    public synchronized void onChange(String path, Object config) {
         Configurator.this._rootConfig.setValue(path, config);
     }
 
     @Override
-    public void onChange(Map<String, Object> configMap) {
-        Configurator.this._rootConfig.setValue(configMap);
+    public synchronized void onChange(Map<String, Object> configMap) {
+        Configurator.this._rootConfig.replaceValue(this._lastConfigMap, configMap);
+        this._lastConfigMap = configMap;
     }
 }
@@ -25,11 +25,20 @@ import uapi.service.annotation.Init;
 import uapi.service.annotation.Inject;
 import uapi.service.annotation.Service;
 
+/**
+ * The provider loads configuration from the config file and reloads it when the
+ * file is changed, the reloaded configuration is diffed by the configuration tree
+ * so only the services bound on changed paths are reconfigured.
+ * If a valid snapshot which is compiled by {@link ConfigSnapshot} exists beside the
+ * config file, the configuration is loaded from the snapshot instead of parsing the file.
+ */
 @Service
 public class FileBasedConfigProvider implements IConfigurable {
 
     static final String CFG_FILE_PATH  = "cli.config";
 
+    static final long DEFAULT_RELOAD_DELAY  = 500L;
+
     @Inject
     ILogger _logger;
 
@@ -41,6 +50,10 @@ public class FileBasedConfigProvider implements IConfigurable {
 
     String _configPath;
 
+    long _reloadDelay = DEFAULT_RELOAD_DELAY;
+
+    private ConfigFileWatcher _watcher;
+
     @Init
     void init() {
         this._logger.info("Config path is {}", this._configPath);
@@ -89,11 +102,58 @@ public class FileBasedConfigProvider implements IConfigurable {
         if (! parser.isPresent()) {
             throw new KernelException("No parser associate with extension name {} on config file {}.", extName, fileName);
         }
-        Map<String, Object> config = parser.get().parse(cfgFile);
+        load(parser.get(), cfgFile);
+        watch(parser.get(), cfgFile);
+    }
+
+    /**
+     * Stop watching the config file and release the watch service and its thread.
+     * It must be invoked when the provider is discarded, like the application is shutting down.
+     */
+    public synchronized void stop() {
+        if (this._watcher != null) {
+            this._watcher.stop();
+            this._watcher = null;
+        }
+    }
+
+    private synchronized void watch(final IConfigFileParser parser, final File cfgFile) {
+        stop();
+        this._watcher = new ConfigFileWatcher(cfgFile, this._reloadDelay, () -> {
+            this._logger.info("Config file {} is changed, reload it", cfgFile);
+            load(parser, cfgFile);
+        }, this._logger);
+        this._watcher.start();
+    }
+
+    private void load(final IConfigFileParser parser, final File cfgFile) {
+        Map<String, Object> config = loadSnapshot(cfgFile);
+        if (config == null) {
+            config = parser.parse(cfgFile);
+        }
         if (config == null) {
             this._logger.warn("No any configuration in the config file {}", cfgFile);
             return;
         }
         this._cfgTracer.onChange(config);
     }
+
+    private Map<String, Object> loadSnapshot(final File cfgFile) {
+        File snapshotFile = ConfigSnapshot.getSnapshotFile(cfgFile);
+        if (! snapshotFile.isFile()) {
+            return null;
+        }
+        try {
+            Map<String, Object> config = ConfigSnapshot.load(cfgFile, snapshotFile);
+            if (config == null) {
+                this._logger.info("The config snapshot {} is out of date, parse config file instead", snapshotFile);
+            } else {
+                this._logger.info("Loaded configuration from snapshot {}", snapshotFile);
+            }
+            return config;
+        } catch (KernelException ex) {
+            this._logger.warn(ex, "Load config snapshot {} failed, parse config file instead", snapshotFile);
+            return null;
+        }
+    }
 }
@@ -1,16 +1,30 @@
+<#macro resolveParsers>
+                    if (this.${fieldParsersHandle} == null) {
+                        this.${fieldParsersHandle} = this.${fieldSvcReg}.getHandle(uapi.config.ConfigValueParsers.class);
+                    }
+                    uapi.config.ConfigValueParsers parsers = this.${fieldParsersHandle}.get();
+                    uapi.helper.ArgumentChecker.notNull(parsers, "parsers");
+</#macro>
 uapi.helper.ArgumentChecker.notEmpty(path, "path");
         uapi.helper.ArgumentChecker.notNull(configObject, "configObject");
-        uapi.config.ConfigValueParsers parsers = this.${fieldSvcReg}.findService(uapi.config.ConfigValueParsers.class);
-        uapi.helper.ArgumentChecker.notNull(parsers, "parsers");
+        switch (path) {
 <#list configInfos as configInfo>
-        if (path.equals("${configInfo.path}")) {
-            <#if configInfo.hasParser()>
-            uapi.config.IConfigValueParser parser = parsers.findParser("${configInfo.parserName}");
-            <#else>
-            uapi.config.IConfigValueParser parser = parsers.findParser(configObject.getClass().getCanonicalName(), "${configInfo.fieldType}");
-            </#if>
-            this.${configInfo.fieldName} = parser.parse(configObject);
-            return;
-        }
+            case "${configInfo.path}":
+                <#if configInfo.hasParser()>
+                if (this.${configInfo.parserField} == null) {
+<@resolveParsers/>
+                    this.${configInfo.parserField} = parsers.findParser("${configInfo.parserName}");
+                }
+                <#else>
+                if (configObject.getClass() != this.${configInfo.parserInField}) {
+<@resolveParsers/>
+                    this.${configInfo.parserField} = parsers.findParser(configObject.getClass().getCanonicalName(), "${configInfo.fieldType}");
+                    this.${configInfo.parserInField} = configObject.getClass();
+                }
+                </#if>
+                this.${configInfo.fieldName} = this.${configInfo.parserField}.parse(configObject);
+                return;
 </#list>
-        throw new uapi.KernelException("Can't set config object {} into service {}", configObject, this);
\ No newline at end of file
+            default:
+                throw new uapi.KernelException("Can't set config object {} into service {}", configObject, this);
+        }
\ No newline at end of file
@@ -10,6 +10,7 @@
 package uapi.config
 
 import spock.lang.Specification
+import uapi.KernelException
 
 /**
  * Test case for ConfigValueParsers
@@ -52,4 +53,54 @@ class ConfigValueParsersTest extends Specification {
         parserName  | node
         'IntParser' | ''
     }
+
+    def 'Test cached parser by type'() {
+        given:
+        def IConfigValueParser mockParser = Mock(IConfigValueParser)
+        ConfigValueParsers parsers = new ConfigValueParsers()
+        parsers._parsers.add(mockParser)
+
+        when:
+        def first = parsers.findParser('a', 'b')
+        def second = parsers.findParser('a', 'b')
+
+        then:
+        1 * mockParser.isSupport('a', 'b') >> true
+        first == mockParser
+        second == mockParser
+    }
+
+    def 'Test cache is rebuilt when parser is added'() {
+        given:
+        def IConfigValueParser mockParser = Mock(IConfigValueParser)
+        def IConfigValueParser newParser = Mock(IConfigValueParser)
+        ConfigValueParsers parsers = new ConfigValueParsers()
+        parsers._parsers.add(mockParser)
+
+        when:
+        parsers.findParser('a', 'b')
+        parsers._parsers.add(newParser)
+        parsers.findParser('a', 'b')
+
+        then:
+        2 * mockParser.isSupport('a', 'b') >> true
+        1 * newParser.isSupport('a', 'b') >> false
+    }
+
+    def 'Test duplicated parser name'() {
+        given:
+        def IConfigValueParser mockParser = Mock(IConfigValueParser)
+        def IConfigValueParser otherParser = Mock(IConfigValueParser)
+        mockParser.getName() >> 'IntParser'
+        otherParser.getName() >> 'IntParser'
+        ConfigValueParsers parsers = new ConfigValueParsers()
+        parsers._parsers.add(mockParser)
+        parsers._parsers.add(otherParser)
+
+        when:
+        parsers.findParser('IntParser')
+
+        then:
+        thrown(KernelException)
+    }
 }
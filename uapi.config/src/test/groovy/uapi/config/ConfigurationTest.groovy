@@ -10,6 +10,10 @@
 package uapi.config
 
 import spock.lang.Specification
+import uapi.KernelException
+import uapi.log.ILogger
+import uapi.service.IServiceReference
+import uapi.service.internal.QualifiedServiceId
 
 /**
  * Test case for Configuration
@@ -70,4 +74,182 @@ class ConfigurationTest extends Specification {
         root.getValue("a1").get("b1").getValue() == "value b1"
         root.getValue("a1").get("b2").getValue() == "value b2"
     }
+
+    def "Test notify changed value only"() {
+        def configurable = Mock(IConfigurable)
+        def svcRef = Mock(IServiceReference) {
+            getService() >> configurable
+            getQualifiedId() >> new QualifiedServiceId('svc', 'local')
+        }
+
+        given:
+        Configuration root = Configuration.createRoot()
+        root.setValue(['a': ['b': 'value b', 'c': 'value c']])
+        root.bindConfigurable('a.b', svcRef)
+
+        when:
+        root.setValue(['a': ['b': 'value b', 'c': 'new value c']])
+
+        then:
+        0 * configurable.config(*_)
+        root.getValue('a.c') == 'new value c'
+
+        when:
+        root.setValue(['a': ['b': 'new value b', 'c': 'new value c']])
+
+        then:
+        1 * configurable.config(['a.b': 'new value b'])
+    }
+
+    def "Test compile path"() {
+        when:
+        def keys = Configuration.compilePath('a.bb.c')
+
+        then:
+        keys == ['a', 'bb', 'c'] as String[]
+        Configuration.compilePath('a.bb.c').is(keys)
+        keys[1].is(new String('bb').intern())
+    }
+
+    def "Test compiled path cache is bounded"() {
+        when:
+        (0..Configuration.MAX_COMPILED_PATHS).each { Configuration.compilePath("bounded.path${it}") }
+        def keys = Configuration.compilePath('bounded.not.cached')
+
+        then:
+        Configuration._compiledPaths.size() <= Configuration.MAX_COMPILED_PATHS
+        keys == ['bounded', 'not', 'cached'] as String[]
+    }
+
+    def "Test find node and full path"() {
+        given:
+        Configuration root = Configuration.createRoot()
+        root.setValue('a.b.c', 'value c')
+
+        when:
+        def node = root.find('a.b.c')
+        root.setValue(['a': ['b': ['c': 'new value c']]])
+
+        then:
+        node.getFullPath() == 'a.b.c'
+        node.getValue() == 'new value c'
+        root.find('a').getFullPath() == 'a'
+        root.find('a.d') == null
+        root.getFullPath() == ''
+    }
+
+    def "Test batch notification per service"() {
+        def configurable = Mock(IConfigurable)
+        def svcRef = Mock(IServiceReference) {
+            getService() >> configurable
+            getQualifiedId() >> new QualifiedServiceId('svc', 'local')
+        }
+
+        given:
+        Configuration root = Configuration.createRoot()
+        root.bindConfigurable('a.b', svcRef)
+        root.bindConfigurable('a.c', svcRef)
+        def version = root.getVersion()
+
+        when:
+        root.setValue(['a': ['b': 'value b', 'c': 'value c']])
+
+        then:
+        1 * configurable.config(['a.b': 'value b', 'a.c': 'value c'])
+        1 * svcRef.notifySatisfied()
+        root.getVersion() == version + 1
+    }
+
+    def "Test notify services after the update is published"() {
+        def values = [:]
+        def root = Configuration.createRoot()
+        def configurable = Mock(IConfigurable) {
+            config(_ as Map) >> { values = ['a.b': root.getValue('a.b'), 'a.c': root.getValue('a.c'), 'version': root.getVersion()] }
+        }
+        def svcRef = Mock(IServiceReference) {
+            getService() >> configurable
+            getQualifiedId() >> new QualifiedServiceId('svc', 'local')
+        }
+
+        given:
+        root.setValue(['a': ['b': 'value b', 'c': 'value c']])
+        root.bindConfigurable('a.b', svcRef)
+        def version = root.getVersion()
+
+        when:
+        root.setValue(['a': ['b': 'new value b', 'c': 'new value c']])
+
+        then:
+        values == ['a.b': 'new value b', 'a.c': 'new value c', 'version': version + 1]
+    }
+
+    def "Test replace value removes absent paths"() {
+        def configurable = Mock(IConfigurable)
+        def svcRef = Mock(IServiceReference) {
+            getService() >> configurable
+            getQualifiedId() >> new QualifiedServiceId('svc', 'local')
+        }
+        def oldMap = ['a': ['b': 'value b', 'c': 'value c'], 'd': 'value d']
+        def newMap = ['a': ['b': 'new value b']]
+
+        given:
+        Configuration root = Configuration.createRoot()
+        root.setValue('cli.config', 'file')
+        root.setValue(oldMap)
+        root.bindConfigurable('a.b', svcRef)
+        root.bindConfigurable('a.c', svcRef)
+        root.bindConfigurable('d', svcRef)
+        def version = root.getVersion()
+
+        when:
+        root.replaceValue(oldMap, newMap)
+
+        then:
+        1 * configurable.config(['a.b': 'new value b'])
+        1 * configurable.removeConfig(['a.c', 'd'])
+        1 * svcRef.notifySatisfied()
+        root.getValue('a.b') == 'new value b'
+        root.find('a.c') == null
+        root.find('d') == null
+        root.getValue('cli.config') == 'file'
+        root.getVersion() == version + 1
+    }
+
+    def "Test failed notification does not stop other services"() {
+        def failedSvc = Mock(IConfigurable) {
+            config(_) >> { throw new RuntimeException() }
+        }
+        def failedRef = Mock(IServiceReference) {
+            getService() >> failedSvc
+            getQualifiedId() >> new QualifiedServiceId('failed', 'local')
+        }
+        def configurable = Mock(IConfigurable)
+        def svcRef = Mock(IServiceReference) {
+            getService() >> configurable
+            getQualifiedId() >> new QualifiedServiceId('svc', 'local')
+        }
+        def logger = Mock(ILogger)
+
+        given:
+        Configuration root = Configuration.createRoot()
+        root.bindConfigurable('a.b', failedRef)
+        root.bindConfigurable('a.c', svcRef)
+
+        when:
+        root.setValue(['a': ['b': 'value b', 'c': 'value c']])
+
+        then:
+        thrown(KernelException)
+        1 * configurable.config(['a.c': 'value c'])
+
+        when:
+        root.setLogger(logger)
+        root.setValue(['a': ['b': 'new value b', 'c': 'new value c']])
+
+        then:
+        noExceptionThrown()
+        1 * logger.error(_ as RuntimeException, _, *_)
+        1 * configurable.config(['a.c': 'new value c'])
+        1 * svcRef.notifySatisfied()
+    }
 }
@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.config.internal
+
+import spock.lang.Specification
+import uapi.KernelException
+import uapi.cache.Caches
+
+/**
+ * Test case for CacheConfigurator
+ */
+class CacheConfiguratorTest extends Specification {
+
+    def 'Test config cache with dotted name'() {
+        given:
+        def cache = Caches.cache('a.b.Svc.find(java.lang.String)', 100, 0)
+        def configurator = new CacheConfigurator()
+
+        when:
+        configurator.config('cache', ['a': ['b': ['Svc': ['find(java': ['lang': ['String)': ['maxSize': '5', 'ttl': 100]]]]]]])
+
+        then:
+        cache.getMaxSize() == 5
+        cache.getTtl() == 100
+    }
+
+    def 'Test config unsupported option'() {
+        given:
+        def configurator = new CacheConfigurator()
+
+        when:
+        configurator.config('cache', ['test': ['size': 5]])
+
+        then:
+        thrown(KernelException)
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.config.internal
+
+import spock.lang.Specification
+import uapi.KernelException
+import uapi.config.IConfigFileParser
+
+/**
+ * Test case for ConfigSnapshot
+ */
+class ConfigSnapshotTest extends Specification {
+
+    def 'Test compile and load'() {
+        def cfgFile = File.createTempFile('config', '.yml')
+        cfgFile.deleteOnExit()
+        cfgFile.text = 'any content'
+        def snapshotFile = ConfigSnapshot.getSnapshotFile(cfgFile)
+        snapshotFile.deleteOnExit()
+        def config = [
+                'str': 'value',
+                'int': 1,
+                'long': 2L,
+                'float': 1.5f,
+                'double': 2.5d,
+                'bool': true,
+                'none': null,
+                'list': ['a', 2, ['str': 'nested']],
+                'map': ['str': 'other', 'int': 3]
+        ]
+        def parser = Mock(IConfigFileParser) {
+            parse(cfgFile) >> config
+        }
+
+        when:
+        ConfigSnapshot.compile(cfgFile, parser, snapshotFile)
+        def loaded = ConfigSnapshot.load(cfgFile, snapshotFile)
+
+        then:
+        loaded == config
+        loaded.keySet() as List == config.keySet() as List
+        loaded['map'].keySet()[0].is('str'.intern())
+    }
+
+    def 'Test out of date snapshot'() {
+        def cfgFile = File.createTempFile('config', '.yml')
+        cfgFile.deleteOnExit()
+        cfgFile.text = 'any content'
+        def snapshotFile = ConfigSnapshot.getSnapshotFile(cfgFile)
+        snapshotFile.deleteOnExit()
+        def parser = Mock(IConfigFileParser) {
+            parse(cfgFile) >> ['key': 'value']
+        }
+
+        given:
+        ConfigSnapshot.compile(cfgFile, parser, snapshotFile)
+
+        when:
+        def modified = cfgFile.lastModified()
+        cfgFile.text = 'any CONTENT'
+        cfgFile.setLastModified(modified)
+
+        then:
+        ConfigSnapshot.load(cfgFile, snapshotFile) == null
+    }
+
+    def 'Test load corrupted snapshot'() {
+        def cfgFile = File.createTempFile('config', '.yml')
+        cfgFile.deleteOnExit()
+        def snapshotFile = ConfigSnapshot.getSnapshotFile(cfgFile)
+        snapshotFile.deleteOnExit()
+        snapshotFile.bytes = new byte[64]
+
+        when:
+        ConfigSnapshot.load(cfgFile, snapshotFile)
+
+        then:
+        thrown(KernelException)
+    }
+}
@@ -51,4 +51,26 @@ class ConfiguratorTest extends Specification {
         then:
         configurator.isSatisfied(svc)
     }
+
+    def 'Test removed config on reload'() {
+        def configurable = Mock(IConfigurable) {
+            getPaths() >> ['test']
+            isOptionalConfig('test') >> false
+        }
+        def svc = Mock(IServiceReference) {
+            getService() >> configurable
+        }
+
+        given:
+        Configurator configurator = new Configurator()
+        configurator.onChange(['test': 'value'])
+        configurator.isSatisfied(svc)
+
+        when:
+        configurator.onChange(['other': 'value'])
+
+        then:
+        1 * configurable.removeConfig(['test'])
+        ! configurator.isSatisfied(svc)
+    }
 }
@@ -10,10 +10,13 @@
 package uapi.config.internal
 
 import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
 import uapi.config.IConfigFileParser
 import uapi.config.IConfigTracer
 import uapi.log.ILogger
 
+import java.util.concurrent.CopyOnWriteArrayList
+
 /**
  * Test case for FileBasedConfigProvider
  */
@@ -37,5 +40,90 @@ class FileBasedConfigProviderTest extends Specification {
 
         then:
         1 * cfgTracer.onChange(['key': 'value'])
+
+        cleanup:
+        provider.stop()
+    }
+
+    def 'Test reload changed config file'() {
+        def cfgFile = File.createTempFile('config', '.yml')
+        cfgFile.deleteOnExit()
+        cfgFile.text = 'key: value'
+        def changes = new CopyOnWriteArrayList()
+        def cfgTracer = [onChange: { Map config -> changes.add(config) }] as IConfigTracer
+        def yamlParser = Mock(IConfigFileParser) {
+            isSupport('yml') >> true
+            parse(_) >> { File file -> ['key': file.text.substring(5)] }
+        }
+
+        given:
+        FileBasedConfigProvider provider = new FileBasedConfigProvider()
+        provider._logger = Mock(ILogger)
+        provider._cfgTracer = cfgTracer
+        provider._parsers.add(yamlParser)
+        provider._reloadDelay = 200
+
+        when:
+        provider.config(FileBasedConfigProvider.CFG_FILE_PATH, cfgFile.absolutePath)
+
+        then:
+        changes == [['key': 'value']]
+
+        when:
+        cfgFile.text = 'key: value2'
+        cfgFile.text = 'key: value3'
+
+        then:
+        new PollingConditions(timeout: 10).eventually {
+            assert changes.size() == 2
+        }
+
+        when:
+        Thread.sleep(provider._reloadDelay * 3)
+
+        then:
+        changes == [['key': 'value'], ['key': 'value3']]
+
+        when:
+        def watcher = provider._watcher
+        provider.stop()
+
+        then:
+        ! watcher.isAlive()
+        provider._watcher == null
+
+        cleanup:
+        provider.stop()
+    }
+
+    def 'Test config from snapshot'() {
+        def cfgFile = File.createTempFile('config', '.yml')
+        cfgFile.deleteOnExit()
+        cfgFile.text = 'key: value'
+        def snapshotFile = ConfigSnapshot.getSnapshotFile(cfgFile)
+        snapshotFile.deleteOnExit()
+        def cfgTracer = Mock(IConfigTracer)
+        def yamlParser = Mock(IConfigFileParser) {
+            isSupport('yml') >> true
+        }
+        ConfigSnapshot.compile(cfgFile, Mock(IConfigFileParser) {
+            parse(_) >> ['key': 'snapshot value']
+        }, snapshotFile)
+
+        given:
+        FileBasedConfigProvider provider = new FileBasedConfigProvider()
+        provider._logger = Mock(ILogger)
+        provider._cfgTracer = cfgTracer
+        provider._parsers.add(yamlParser)
+
+        when:
+        provider.config(FileBasedConfigProvider.CFG_FILE_PATH, cfgFile.absolutePath)
+
+        then:
+        0 * yamlParser.parse(_)
+        1 * cfgTracer.onChange(['key': 'snapshot value'])
+
+        cleanup:
+        provider.stop()
     }
 }
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Default implementation for handle related annotations
@@ -120,6 +121,41 @@ public abstract class AnnotationsHandler implements IAnnotationsHandler {
         return types;
     }
 
+    /**
+     * Return the full signature of the method, like a.b.Service.method(java.lang.String,int)
+     *
+     * @param   classElement
+     *          The class which declares the method
+     * @param   methodElement
+     *          The method
+     * @return  The method signature
+     */
+    protected String getMethodSignature(
+            final TypeElement classElement,
+            final ExecutableElement methodElement
+    ) {
+        ArgumentChecker.notNull(classElement, "classElement");
+        ArgumentChecker.notNull(methodElement, "methodElement");
+        return StringHelper.makeString("{}.{}({})",
+                classElement.getQualifiedName().toString(),
+                methodElement.getSimpleName().toString(),
+                methodElement.getParameters().stream()
+                        .map(paramElement -> paramElement.asType().toString())
+                        .collect(Collectors.joining(",")));
+    }
+
+    /**
+     * Escape the string to be used as java string literal in generated code
+     *
+     * @param   value
+     *          The string
+     * @return  The escaped string
+     */
+    protected String escapeString(final String value) {
+        ArgumentChecker.notNull(value, "value");
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
     @Override
     public void handle(
             final IBuilderContext builderContext
@@ -130,6 +166,13 @@ public abstract class AnnotationsHandler implements IAnnotationsHandler {
                             (t) -> builderContext.getLogger().error(t));
     }
 
+    @Override
+    public void processingOver(
+            final IBuilderContext builderContext
+    ) throws KernelException {
+        // Do nothing by default
+    }
+
     protected abstract Class<? extends Annotation>[] getOrderedAnnotations();
 
     public IHandlerHelper getHelper() {
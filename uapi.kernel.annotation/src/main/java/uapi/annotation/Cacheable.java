@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The annotation to apply on non-void method to cache its return value by its arguments.
+ * The overridden method of generated class looks up a uapi.cache.Cache before invoking
+ * the method, the cache is shared by all instances of the class.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.CLASS)
+public @interface Cacheable {
+
+    /**
+     * The cache name, default is class name, method name and parameter types,
+     * like a.b.Service.method(java.lang.String,int)
+     *
+     * @return  The cache name
+     */
+    String value() default "";
+
+    /**
+     * The max number of cached return values
+     *
+     * @return  The max size
+     */
+    int maxSize() default 1000;
+
+    /**
+     * The time to live of cached return value in milliseconds, 0 means never expires
+     *
+     * @return  The time to live
+     */
+    long ttl() default 0;
+}
@@ -89,7 +89,8 @@ public final class ClassMeta {
         return builder()
                 .setPackageName(pkgElemt.getQualifiedName().toString())
                 .setClassName(classElement.getSimpleName().toString())
-                .setGeneratedClassName(classElement.getSimpleName().toString() + "_Generated");
+                .setGeneratedClassName(classElement.getSimpleName().toString() + "_Generated")
+                .setOriginatingElement(classElement);
 
     }
 
@@ -98,6 +99,7 @@ public final class ClassMeta {
         private String _pkgName;
         private String _className;
         private String _generatedClassName;
+        private Element _originatingElement;
         private List<String> _imports = new ArrayList<>();
         private List<String> _implements = new ArrayList<>();
         private List<AnnotationMeta> _annotations = new ArrayList<>();
@@ -141,6 +143,24 @@ public final class ClassMeta {
             return this;
         }
 
+        public Builder setOriginatingElement(
+                final Element originatingElement
+        ) throws KernelException {
+            checkStatus();
+            this._originatingElement = originatingElement;
+            return this;
+        }
+
+        /**
+         * Return the source element which the generated class is generated from,
+         * it is reported to the Filer to make incremental build can track the generated class
+         *
+         * @return  The originating element or null if the builder is not created from an element
+         */
+        public Element getOriginatingElement() {
+            return this._originatingElement;
+        }
+
         public Builder addImport(
                 final String importClassName
         ) throws KernelException {
@@ -47,6 +47,10 @@ public final class FieldMeta {
         return CollectionHelper.asString(this._builder._modifiers, " ");
     }
 
+    public String getValue() {
+        return this._builder._value;
+    }
+
     @Override
     public String toString() {
         return this._builder.toString();
@@ -66,6 +70,7 @@ public final class FieldMeta {
         private String _injectServiceId;
         private boolean _isList;
         private List<Modifier> _modifiers = new ArrayList<>();
+        private String _value;
 
         public Builder setName(
                 final String name
@@ -108,6 +113,22 @@ public final class FieldMeta {
             return this;
         }
 
+        /**
+         * Set the initial value expression of the field
+         *
+         * @param   value
+         *          The java expression which is used to initialize the field
+         * @return  This builder
+         * @throws  KernelException
+         *          The builder is already built
+         */
+        public Builder setValue(
+                final String value
+        ) throws KernelException {
+            checkStatus();
+            this._value = value;
+            return this;
+        }
 
         @Override
         protected void validation() throws InvalidArgumentException {
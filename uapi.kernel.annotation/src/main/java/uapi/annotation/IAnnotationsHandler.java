@@ -50,4 +50,17 @@ public interface IAnnotationsHandler {
      *          Handle annotation failed
      */
     void handle(final IBuilderContext builderContext) throws KernelException;
+
+    /**
+     * Invoked in the first round which generates no more class after elements were handled,
+     * the handler can generate sources or resources which aggregate all elements handled in
+     * previous rounds. It is invoked before the final round, so the generated sources are
+     * compiled normally
+     *
+     * @param   builderContext
+     *          The context
+     * @throws  KernelException
+     *          Generate aggregated sources or resources failed
+     */
+    void processingOver(final IBuilderContext builderContext) throws KernelException;
 }
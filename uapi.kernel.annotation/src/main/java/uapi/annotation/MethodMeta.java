@@ -13,6 +13,7 @@ import uapi.InvalidArgumentException;
 import uapi.KernelException;
 import uapi.helper.ArgumentChecker;
 import uapi.helper.CollectionHelper;
+import uapi.helper.Pair;
 import uapi.helper.StringHelper;
 
 import javax.lang.model.element.Element;
@@ -63,6 +64,14 @@ public class MethodMeta {
         return this._builder._invokeSuper == InvokeSuper.AFTER;
     }
 
+    public boolean getInvokeSuperAround() {
+        return this._builder._aroundCodeBuilders.size() > 0;
+    }
+
+    public boolean getIsVoid() {
+        return "void".equals(this._builder._rtnTypeName);
+    }
+
     public List<ParameterMeta> getParameters() {
         return this._builder._params;
     }
@@ -75,6 +84,17 @@ public class MethodMeta {
         return this._builder._codes;
     }
 
+    /**
+     * Return codes which wrap the super method invocation, the left code of each pair
+     * is put before the invocation and the right code is put after it, the first pair
+     * is the outermost one.
+     *
+     * @return  The code pairs
+     */
+    public List<Pair<CodeMeta, CodeMeta>> getAroundCodes() {
+        return this._builder._aroundCodes;
+    }
+
     @Override
     public String toString() {
         return this._builder.toString();
@@ -124,6 +144,8 @@ public class MethodMeta {
         private Set<String> _throwTypeNames = new HashSet<>();
         private List<CodeMeta> _codes = new ArrayList<>();
         private List<CodeMeta.Builder> _codeBuilders = new ArrayList<>();
+        private List<Pair<CodeMeta, CodeMeta>> _aroundCodes = new ArrayList<>();
+        private List<Pair<CodeMeta.Builder, CodeMeta.Builder>> _aroundCodeBuilders = new ArrayList<>();
 
         protected Builder() { }
 
@@ -171,7 +193,7 @@ public class MethodMeta {
                 final InvokeSuper invokeSuper
         ) throws KernelException {
             checkStatus();
-            if (this._invokeSuper != InvokeSuper.NONE) {
+            if (this._invokeSuper != InvokeSuper.NONE && this._invokeSuper != invokeSuper) {
                 throw new KernelException(
                         "The invoke super can be set only once, current: {}, request: {}",
                         this._invokeSuper, invokeSuper);
@@ -232,6 +254,32 @@ public class MethodMeta {
             return this;
         }
 
+        /**
+         * Add codes which wrap the invocation of super method, the super method will be
+         * invoked after all codes added by addCodeBuilder method.
+         * For non-void method the return value of super method is stored in local
+         * variable $result and returned after all after codes, the before code can
+         * return directly to skip the invocation.
+         *
+         * @param   beforeCodeBuilder
+         *          The code which is put before the invocation
+         * @param   afterCodeBuilder
+         *          The code which is put after the invocation
+         * @return  This builder
+         * @throws  InvalidArgumentException
+         *          The code builder is null
+         */
+        public Builder addAroundCodeBuilders(
+                final CodeMeta.Builder beforeCodeBuilder,
+                final CodeMeta.Builder afterCodeBuilder
+        ) throws InvalidArgumentException {
+            checkStatus();
+            ArgumentChecker.notNull(beforeCodeBuilder, "beforeCodeBuilder");
+            ArgumentChecker.notNull(afterCodeBuilder, "afterCodeBuilder");
+            this._aroundCodeBuilders.add(new Pair<>(beforeCodeBuilder, afterCodeBuilder));
+            return this;
+        }
+
         public CodeMeta.Builder addCodeBuilderIfAbsent(
                 final CodeMeta.Builder codeBuilder
         ) throws InvalidArgumentException {
@@ -307,6 +355,15 @@ public class MethodMeta {
             this._annoBuilders.forEach(AnnotationMeta.Builder::validation);
             this._paramBuilders.forEach(ParameterMeta.Builder::validation);
             this._codeBuilders.forEach(CodeMeta.Builder::validation);
+            this._aroundCodeBuilders.forEach(pair -> {
+                pair.getLeftValue().validation();
+                pair.getRightValue().validation();
+            });
+            if (this._aroundCodeBuilders.size() > 0 && this._invokeSuper == InvokeSuper.BEFORE) {
+                throw new KernelException(
+                        "The method {} has around codes can't invoke super method before - {}",
+                        this._name, this._aroundCodeBuilders);
+            }
         }
 
         @Override
@@ -323,6 +380,12 @@ public class MethodMeta {
                 codeBuilder.initProperties();
                 this._codes.add(codeBuilder.createInstance());
             });
+            this._aroundCodeBuilders.forEach(pair -> {
+                pair.getLeftValue().initProperties();
+                pair.getRightValue().initProperties();
+                this._aroundCodes.add(new Pair<>(
+                        pair.getLeftValue().createInstance(), pair.getRightValue().createInstance()));
+            });
         }
 
         @Override
@@ -344,7 +407,8 @@ public class MethodMeta {
                             "throwTypeNames={}, " +
                             "invokeSuper={}, " +
                             "codes={}, " +
-                            "codeBuilders={}]",
+                            "codeBuilders={}, " +
+                            "aroundCodeBuilders={}]",
                     this._annos,
                     this._annoBuilders,
                     this._name,
@@ -355,7 +419,8 @@ public class MethodMeta {
                     this._throwTypeNames,
                     this._invokeSuper,
                     this._codes,
-                    this._codeBuilders
+                    this._codeBuilders,
+                    this._aroundCodeBuilders
             );
         }
 
@@ -367,8 +432,7 @@ public class MethodMeta {
             return Objects.equals(this._name, builder._name) &&
                     CollectionHelper.equals(this._modifiers, builder._modifiers) &&
                     Objects.equals(this._rtnTypeName, builder._rtnTypeName) &&
-                    CollectionHelper.equals(this._paramBuilders, builder._paramBuilders) &&
-                    CollectionHelper.equals(this._throwTypeNames, builder._throwTypeNames);
+                    CollectionHelper.equals(this._paramBuilders, builder._paramBuilders);
         }
 
         @Override
@@ -377,8 +441,7 @@ public class MethodMeta {
                     this._name,
                     this._modifiers,
                     this._rtnTypeName,
-                    this._paramBuilders,
-                    this._throwTypeNames);
+                    this._paramBuilders);
         }
     }
 
@@ -19,6 +19,6 @@ import java.lang.annotation.Target;
  * indicate the argument can't be null or empty string
  */
 @Target(ElementType.PARAMETER)
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 public @interface NotNull {
 }
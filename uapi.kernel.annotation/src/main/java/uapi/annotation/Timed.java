@@ -0,0 +1,33 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The annotation to apply on method to record its call count, error count
+ * and latency into uapi.metric.Metrics, the recording code is generated into
+ * the overridden method of generated class
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.CLASS)
+public @interface Timed {
+
+    /**
+     * The timer name, default is class name, method name and parameter types,
+     * like a.b.Service.method(java.lang.String,int)
+     *
+     * @return  The timer name
+     */
+    String value() default "";
+}
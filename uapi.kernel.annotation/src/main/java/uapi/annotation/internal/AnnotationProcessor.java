@@ -10,8 +10,10 @@
 package uapi.annotation.internal;
 
 import com.google.auto.service.AutoService;
+import freemarker.template.Configuration;
 import freemarker.template.Template;
 import rx.Observable;
+import uapi.KernelException;
 import uapi.annotation.*;
 
 import javax.annotation.processing.AbstractProcessor;
@@ -19,13 +21,16 @@ import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.Processor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
 import javax.tools.JavaFileObject;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.net.URL;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @AutoService(Processor.class)
 public class AnnotationProcessor extends AbstractProcessor {
@@ -38,6 +43,18 @@ public class AnnotationProcessor extends AbstractProcessor {
     private ProcessingEnvironment _procEnv;
     private List<IAnnotationsHandler> _handlers;
     private Set<String> _orderedAnnotations;
+    /**
+     * Qualified names of the classes which were generated in previous rounds
+     */
+    private Set<String> _generatedClasses;
+    /**
+     * The template configuration is shared by all rounds to cache parsed templates
+     */
+    private Configuration _tempConf;
+    /**
+     * Some elements were handled after the handlers generated aggregated sources last time
+     */
+    private boolean _aggregationPending = false;
 
     @Override
     public void init(ProcessingEnvironment processingEnv) {
@@ -45,6 +62,8 @@ public class AnnotationProcessor extends AbstractProcessor {
         this._logger = new LogSupport(processingEnv);
         this._handlers = new LinkedList<>();
         this._orderedAnnotations = new HashSet<>();
+        this._generatedClasses = new HashSet<>();
+        this._tempConf = BuilderContext.createTemplateConfiguration(processingEnv);
         loadExternalHandler();
     }
 
@@ -110,11 +129,26 @@ public class AnnotationProcessor extends AbstractProcessor {
     public boolean process(
             final Set<? extends TypeElement> annotations,
             final RoundEnvironment roundEnv) {
-        if (roundEnv.processingOver() || annotations.size() == 0) {
+        if (roundEnv.processingOver()) {
+            // Only happen if no round was left after the handling, the sources which are
+            // generated in final round are not compiled normally.
+            // Nothing is aggregated if the processing is stopped by an error
+            if (this._aggregationPending && ! roundEnv.errorRaised()) {
+                aggregate(roundEnv);
+            }
+            return false;
+        }
+        if (annotations.size() == 0) {
+            // No more source is generated, the aggregated sources are generated in this round
+            // so they are compiled in next round instead of in final round
+            if (this._aggregationPending) {
+                aggregate(roundEnv);
+            }
             return false;
         }
+        this._aggregationPending = true;
         //this._logger.info("Start processing annotation for {} " + roundEnv.getRootElements());
-        BuilderContext buildCtx = new BuilderContext(this._procEnv, roundEnv);
+        BuilderContext buildCtx = new BuilderContext(this._procEnv, roundEnv, this._tempConf);
         // Init for builder context
         Observable.from(this._handlers)
                 .map(handler -> handler.getHelper())
@@ -126,14 +160,32 @@ public class AnnotationProcessor extends AbstractProcessor {
 
         // Generate source
         //this._logger.info("Starting generate source");
-        generateSource(buildCtx);
+        int generatedCount = generateSource(buildCtx);
         buildCtx.clearBuilders();
+        if (generatedCount == 0) {
+            aggregate(roundEnv);
+        }
 
         //this._logger.info("End processing");
         return true;
     }
 
-    private void generateSource(BuilderContext builderContext) {
+    private void aggregate(final RoundEnvironment roundEnv) {
+        this._aggregationPending = false;
+        BuilderContext buildCtx = new BuilderContext(this._procEnv, roundEnv, this._tempConf);
+        Observable.from(this._handlers)
+                .subscribe(handler -> handler.processingOver(buildCtx), _logger::error);
+    }
+
+    /**
+     * Generate sources for class builders, a class which was generated in previous rounds
+     * is reported as an error since the Filer can't create its source again
+     *
+     * @param   builderContext
+     *          The context
+     * @return  The count of generated sources
+     */
+    private int generateSource(BuilderContext builderContext) {
         List<ClassMeta.Builder> classBuilders = builderContext.getBuilders();
 
         Template temp;
@@ -141,32 +193,70 @@ public class AnnotationProcessor extends AbstractProcessor {
             temp = builderContext.loadTemplate(TEMP_FILE);
         } catch (Exception ex) {
             this._logger.error(ex);
-            return;
+            return 0;
         }
 
+        // The class which was generated in previous round can't be generated again
+        List<ClassMeta.Builder> newClassBuilders = new ArrayList<>();
         for (ClassMeta.Builder classBuilder : classBuilders) {
-            Writer srcWriter = null;
+            if (this._generatedClasses.add(getGeneratedClassName(classBuilder))) {
+                newClassBuilders.add(classBuilder);
+            } else {
+                this._logger.error("The class {} was generated in previous round, it can't be generated again",
+                        getGeneratedClassName(classBuilder));
+            }
+        }
+
+        // Render sources in parallel, the Filer is not thread safe so the sources are written one by one
+        List<String> sources;
+        try {
+            List<ClassMeta> classMetas = newClassBuilders.stream()
+                    .map(ClassMeta.Builder::build)
+                    .collect(Collectors.toList());
+            sources = classMetas.parallelStream()
+                    .map(classMeta -> render(temp, classMeta))
+                    .collect(Collectors.toList());
+        } catch (Exception ex) {
+            this._logger.error(ex);
+            return 0;
+        }
+
+        for (int i = 0; i < newClassBuilders.size(); i++) {
+            ClassMeta.Builder classBuilder = newClassBuilders.get(i);
+            String generatedClassName = getGeneratedClassName(classBuilder);
+            Element originatingElement = classBuilder.getOriginatingElement();
             try {
-                //this._logger.info("Generate source for -> {}", classBuilder);
-                ClassMeta classMeta = classBuilder.build();
-                JavaFileObject fileObj = builderContext.getFiler().createSourceFile(
-                        classMeta.getGeneratedClassName()
-                );
-                srcWriter = fileObj.openWriter();
-                temp.process(classMeta, srcWriter);
-                //this._logger.info("Generate source for " + classMeta.getClassName());
+                JavaFileObject fileObj;
+                if (originatingElement == null) {
+                    fileObj = builderContext.getFiler().createSourceFile(generatedClassName);
+                } else {
+                    fileObj = builderContext.getFiler().createSourceFile(generatedClassName, originatingElement);
+                }
+                try (Writer srcWriter = fileObj.openWriter()) {
+                    srcWriter.write(sources.get(i));
+                }
             } catch (Exception ex) {
                 this._logger.error(ex);
-                return;
-            } finally {
-                if (srcWriter != null) {
-                    try {
-                        srcWriter.close();
-                    } catch (Exception ex) {
-                        this._logger.error(ex);
-                    }
-                }
+                return i;
             }
         }
+        return newClassBuilders.size();
+    }
+
+    private static String getGeneratedClassName(final ClassMeta.Builder classBuilder) {
+        return classBuilder.getPackageName() + "." + classBuilder.getGeneratedClassName();
+    }
+
+    private static String render(
+            final Template template,
+            final ClassMeta classMeta
+    ) throws KernelException {
+        StringWriter srcWriter = new StringWriter();
+        try {
+            template.process(classMeta, srcWriter);
+        } catch (Exception ex) {
+            throw new KernelException(ex, "Render source for {} failed", classMeta.getClassName());
+        }
+        return srcWriter.toString();
     }
 }
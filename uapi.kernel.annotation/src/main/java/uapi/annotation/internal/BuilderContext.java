@@ -28,7 +28,6 @@ import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import java.lang.annotation.Annotation;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * A context for building class builder
@@ -39,23 +38,63 @@ public final class BuilderContext implements IBuilderContext {
     private final ProcessingEnvironment _procEnv;
     private final RoundEnvironment _roundEnv;
     private final List<ClassMeta.Builder> _clsBuilders = new ArrayList<>();
+    /**
+     * Qualified class name -> class builder, it indexes the _clsBuilders for lookup
+     */
+    private final Map<String, ClassMeta.Builder> _clsBuilderIndex = new HashMap<>();
     private final Configuration _tempConf;
     private final Map<String, IHandlerHelper> _helpers = new HashMap<>();
 
     public BuilderContext(
             final ProcessingEnvironment processingEnvironment,
             final RoundEnvironment roundEnvironment) {
+        this(processingEnvironment, roundEnvironment, createTemplateConfiguration(processingEnvironment));
+    }
+
+    /**
+     * Create builder context with specific template configuration, the configuration caches
+     * parsed templates, so sharing it between rounds avoids parsing same template again
+     *
+     * @param   processingEnvironment
+     *          The processing environment
+     * @param   roundEnvironment
+     *          The environment of current round
+     * @param   templateConfiguration
+     *          The template configuration which is created by createTemplateConfiguration
+     */
+    public BuilderContext(
+            final ProcessingEnvironment processingEnvironment,
+            final RoundEnvironment roundEnvironment,
+            final Configuration templateConfiguration) {
         ArgumentChecker.notNull(processingEnvironment, "processingEnvironment");
         ArgumentChecker.notNull(roundEnvironment, "roundEnvironment");
+        ArgumentChecker.notNull(templateConfiguration, "templateConfiguration");
         this._procEnv = processingEnvironment;
         this._roundEnv = roundEnvironment;
         this._logger = new LogSupport(processingEnvironment);
-        // Initialize freemarker template configuration
-        this._tempConf = new Configuration(Configuration.VERSION_2_3_22);
-        this._tempConf.setDefaultEncoding("UTF-8");
-        this._tempConf.setLocalizedLookup(false);
-        this._tempConf.setTemplateLoader(
-                new CompileTimeTemplateLoader(this, StringHelper.EMPTY));
+        this._tempConf = templateConfiguration;
+    }
+
+    /**
+     * Create freemarker template configuration which loads template from class path.
+     * The templates can't be changed during compiling, so the loaded template is never
+     * checked for update
+     *
+     * @param   processingEnvironment
+     *          The processing environment
+     * @return  The template configuration
+     */
+    public static Configuration createTemplateConfiguration(
+            final ProcessingEnvironment processingEnvironment
+    ) {
+        ArgumentChecker.notNull(processingEnvironment, "processingEnvironment");
+        Configuration tempConf = new Configuration(Configuration.VERSION_2_3_22);
+        tempConf.setDefaultEncoding("UTF-8");
+        tempConf.setLocalizedLookup(false);
+        tempConf.setTemplateUpdateDelayMilliseconds(Long.MAX_VALUE);
+        tempConf.setTemplateLoader(
+                new CompileTimeTemplateLoader(processingEnvironment.getFiler(), StringHelper.EMPTY));
+        return tempConf;
     }
 
     @Override
@@ -103,6 +142,7 @@ public final class BuilderContext implements IBuilderContext {
     @Override
     public void clearBuilders() {
         this._clsBuilders.clear();
+        this._clsBuilderIndex.clear();
     }
 
     @Override
@@ -120,21 +160,13 @@ public final class BuilderContext implements IBuilderContext {
     @Override
     public ClassMeta.Builder findClassBuilder(Element classElement) {
         ArgumentChecker.notNull(classElement, "classElement");
-        final ClassMeta.Builder expectedBuilder = ClassMeta.builder(classElement, this);
-        List<ClassMeta.Builder> matchedClassBuilders = this._clsBuilders.parallelStream()
-                .filter(existing -> existing.equals(expectedBuilder))
-                .collect(Collectors.toList());
-        ClassMeta.Builder clsBuilder;
-        if (matchedClassBuilders.size() == 0) {
-            this._clsBuilders.add(expectedBuilder);
-            clsBuilder = expectedBuilder;
-        } else if (matchedClassBuilders.size() == 1) {
-            clsBuilder = matchedClassBuilders.get(0);
-        } else {
-            throw new KernelException(
-                    "Expect found only 1 class builder for {}, but found {}",
-                    expectedBuilder.getPackageName() + "." + expectedBuilder.getClassName(),
-                    matchedClassBuilders.size());
+        String pkgName = getElementUtils().getPackageOf(classElement).getQualifiedName().toString();
+        String clsName = pkgName + "." + classElement.getSimpleName().toString();
+        ClassMeta.Builder clsBuilder = this._clsBuilderIndex.get(clsName);
+        if (clsBuilder == null) {
+            clsBuilder = ClassMeta.builder(classElement, this);
+            this._clsBuilders.add(clsBuilder);
+            this._clsBuilderIndex.put(clsName, clsBuilder);
         }
         return clsBuilder;
     }
@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.annotation.internal;
+
+import com.google.auto.service.AutoService;
+import uapi.KernelException;
+import uapi.annotation.*;
+import uapi.cache.Cache;
+import uapi.cache.CacheKey;
+import uapi.cache.Caches;
+import uapi.helper.ArgumentChecker;
+import uapi.helper.StringHelper;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A Handler for handle Cacheable annotation, it generates a static cache field and
+ * looks up the cache before the super method invocation in the overridden method
+ */
+@AutoService(IAnnotationsHandler.class)
+public final class CacheableHandler extends AnnotationsHandler {
+
+    private static final String CACHE_COUNT     = "CacheCount";
+    private static final String FIELD_PREFIX    = "_cache";
+
+    @SuppressWarnings("unchecked")
+    private static final Class<? extends Annotation>[] orderedAnnotations = new Class[] { Cacheable.class };
+
+    @Override
+    public Class<? extends Annotation>[] getOrderedAnnotations() {
+        return orderedAnnotations;
+    }
+
+    @Override
+    public void handleAnnotatedElements(
+            final IBuilderContext builderCtx,
+            final Class<? extends Annotation> annotationType,
+            final Set<? extends Element> methodElements
+    ) throws KernelException {
+        ArgumentChecker.equals(annotationType, Cacheable.class, "annotationType");
+
+        methodElements.forEach(methodElement -> {
+            if (methodElement.getKind() != ElementKind.METHOD) {
+                throw new KernelException(
+                        "The Cacheable annotation only can be applied on method - {}",
+                        methodElement.getSimpleName().toString());
+            }
+            ExecutableElement execElement = (ExecutableElement) methodElement;
+            if (execElement.getReturnType().getKind() == TypeKind.VOID) {
+                throw new KernelException(
+                        "The Cacheable annotation can't be applied on void method - {}",
+                        methodElement.getSimpleName().toString());
+            }
+            Element classElement = methodElement.getEnclosingElement();
+            checkModifiers(methodElement, Cacheable.class, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL);
+            checkModifiers(classElement, Cacheable.class, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL);
+
+            ClassMeta.Builder clsBuilder = builderCtx.findClassBuilder(classElement);
+            MethodMeta.Builder methodBuilder = clsBuilder.findMethodBuilder(methodElement, builderCtx);
+
+            Integer cacheCount = clsBuilder.getTransience(CACHE_COUNT);
+            cacheCount = cacheCount == null ? 0 : cacheCount;
+            clsBuilder.putTransience(CACHE_COUNT, cacheCount + 1);
+            String fieldName = FIELD_PREFIX + cacheCount;
+
+            Cacheable cacheable = methodElement.getAnnotation(Cacheable.class);
+            if (cacheable.maxSize() <= 0) {
+                throw new KernelException(
+                        "The max size of Cacheable annotation must be positive - {}",
+                        methodElement.getSimpleName().toString());
+            }
+            String cacheName = cacheable.value();
+            if (ArgumentChecker.isEmpty(cacheName)) {
+                cacheName = getMethodSignature((TypeElement) classElement, execElement);
+            }
+
+            clsBuilder.addFieldBuilder(FieldMeta.builder()
+                    .addModifier(Modifier.PRIVATE)
+                    .addModifier(Modifier.STATIC)
+                    .addModifier(Modifier.FINAL)
+                    .setTypeName(Cache.class.getCanonicalName())
+                    .setName(fieldName)
+                    .setValue(StringHelper.makeString("{}.cache(\"{}\", {}, {}L)",
+                            Caches.class.getCanonicalName(),
+                            escapeString(cacheName),
+                            cacheable.maxSize(),
+                            cacheable.ttl())));
+
+            String rtnType = execElement.getReturnType().toString();
+            String cachedValue;
+            if (execElement.getReturnType().getKind().isPrimitive()) {
+                cachedValue = StringHelper.makeString("({}) $cached{}", rtnType, fieldName);
+            } else {
+                cachedValue = StringHelper.makeString("$cached{} == {}.NULL ? null : ({}) $cached{}",
+                        fieldName, Cache.class.getCanonicalName(), rtnType, fieldName);
+            }
+            String beforeCodes = StringHelper.makeString(
+                    "Object $key{} = {};\n" +
+                    "Object $cached{} = {}.get($key{});\n" +
+                    "if ($cached{} != null) {\n" +
+                    "    return {};\n" +
+                    "}\n",
+                    fieldName, keyExpression(execElement),
+                    fieldName, fieldName, fieldName,
+                    fieldName,
+                    cachedValue);
+            String afterCodes = StringHelper.makeString(
+                    "{}.put($key{}, $result);\n",
+                    fieldName, fieldName);
+            methodBuilder.addAroundCodeBuilders(
+                    CodeMeta.builder().addRawCode(beforeCodes),
+                    CodeMeta.builder().addRawCode(afterCodes));
+        });
+    }
+
+    /**
+     * Build the key expression from the method arguments, one reference argument is used
+     * as the key directly, the primitive arguments are stored into long array to avoid boxing
+     */
+    private static String keyExpression(final ExecutableElement methodElement) {
+        List<? extends VariableElement> params = methodElement.getParameters();
+        String cacheKeyType = CacheKey.class.getCanonicalName();
+        if (params.size() == 0) {
+            return cacheKeyType + ".EMPTY";
+        }
+        if (params.size() == 1) {
+            return StringHelper.makeString("{}.of({})", cacheKeyType, params.get(0).getSimpleName().toString());
+        }
+        List<String> primitives = new ArrayList<>();
+        List<String> objects = new ArrayList<>();
+        params.forEach(param -> {
+            String name = param.getSimpleName().toString();
+            switch (param.asType().getKind()) {
+                case BOOLEAN:
+                    primitives.add("(" + name + " ? 1L : 0L)");
+                    break;
+                case FLOAT:
+                    primitives.add("Float.floatToIntBits(" + name + ")");
+                    break;
+                case DOUBLE:
+                    primitives.add("Double.doubleToLongBits(" + name + ")");
+                    break;
+                case BYTE:
+                case SHORT:
+                case CHAR:
+                case INT:
+                case LONG:
+                    primitives.add(name);
+                    break;
+                default:
+                    objects.add(name);
+            }
+        });
+        return StringHelper.makeString("new {}({}, {})",
+                cacheKeyType,
+                primitives.size() == 0 ?
+                        cacheKeyType + ".NO_PRIMITIVES" :
+                        "new long[] { " + String.join(", ", primitives) + " }",
+                objects.size() == 0 ?
+                        cacheKeyType + ".NO_OBJECTS" :
+                        "new Object[] { " + String.join(", ", objects) + " }");
+    }
+}
@@ -13,6 +13,7 @@ import freemarker.cache.TemplateLoader;
 import uapi.KernelException;
 import uapi.helper.ArgumentChecker;
 
+import javax.annotation.processing.Filer;
 import javax.tools.FileObject;
 import javax.tools.StandardLocation;
 import java.io.IOException;
@@ -23,15 +24,15 @@ import java.io.Reader;
  */
 public class CompileTimeTemplateLoader implements TemplateLoader {
 
-    private final BuilderContext _builderCtx;
+    private final Filer _filer;
     private final String _basePkgPath;
 
     public CompileTimeTemplateLoader(
-            final BuilderContext builderContext,
+            final Filer filer,
             final String basePackagePath
     ) {
-        ArgumentChecker.notNull(builderContext, "builderContext");
-        this._builderCtx = builderContext;
+        ArgumentChecker.notNull(filer, "filer");
+        this._filer = filer;
         this._basePkgPath = basePackagePath;
     }
 
@@ -40,7 +41,7 @@ public class CompileTimeTemplateLoader implements TemplateLoader {
             final String name
     ) throws IOException {
         ArgumentChecker.required(name, "name");
-        FileObject fObj = this._builderCtx.getFiler().getResource(
+        FileObject fObj = this._filer.getResource(
                 StandardLocation.CLASS_PATH, this._basePkgPath, name);
         return fObj;
     }
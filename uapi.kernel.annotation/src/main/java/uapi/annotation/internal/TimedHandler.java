@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.annotation.internal;
+
+import com.google.auto.service.AutoService;
+import uapi.KernelException;
+import uapi.annotation.*;
+import uapi.helper.ArgumentChecker;
+import uapi.helper.StringHelper;
+import uapi.metric.Metrics;
+import uapi.metric.Timer;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import java.lang.annotation.Annotation;
+import java.util.Set;
+
+/**
+ * A Handler for handle Timed annotation, it generates a static timer field and
+ * wraps the super method invocation by the timing code in the overridden method
+ */
+@AutoService(IAnnotationsHandler.class)
+public final class TimedHandler extends AnnotationsHandler {
+
+    private static final String TIMER_COUNT     = "TimerCount";
+    private static final String FIELD_PREFIX    = "_timer";
+
+    @SuppressWarnings("unchecked")
+    private static final Class<? extends Annotation>[] orderedAnnotations = new Class[] { Timed.class };
+
+    @Override
+    public Class<? extends Annotation>[] getOrderedAnnotations() {
+        return orderedAnnotations;
+    }
+
+    @Override
+    public void handleAnnotatedElements(
+            final IBuilderContext builderCtx,
+            final Class<? extends Annotation> annotationType,
+            final Set<? extends Element> methodElements
+    ) throws KernelException {
+        ArgumentChecker.equals(annotationType, Timed.class, "annotationType");
+
+        methodElements.forEach(methodElement -> {
+            if (methodElement.getKind() != ElementKind.METHOD) {
+                throw new KernelException(
+                        "The Timed annotation only can be applied on method - {}",
+                        methodElement.getSimpleName().toString());
+            }
+            Element classElement = methodElement.getEnclosingElement();
+            checkModifiers(methodElement, Timed.class, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL);
+            checkModifiers(classElement, Timed.class, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL);
+
+            ClassMeta.Builder clsBuilder = builderCtx.findClassBuilder(classElement);
+            MethodMeta.Builder methodBuilder = clsBuilder.findMethodBuilder(methodElement, builderCtx);
+
+            Integer timerCount = clsBuilder.getTransience(TIMER_COUNT);
+            timerCount = timerCount == null ? 0 : timerCount;
+            clsBuilder.putTransience(TIMER_COUNT, timerCount + 1);
+            String fieldName = FIELD_PREFIX + timerCount;
+
+            String timerName = methodElement.getAnnotation(Timed.class).value();
+            if (ArgumentChecker.isEmpty(timerName)) {
+                timerName = getMethodSignature((TypeElement) classElement, (ExecutableElement) methodElement);
+            }
+
+            clsBuilder.addFieldBuilder(FieldMeta.builder()
+                    .addModifier(Modifier.PRIVATE)
+                    .addModifier(Modifier.STATIC)
+                    .addModifier(Modifier.FINAL)
+                    .setTypeName(Timer.class.getCanonicalName())
+                    .setName(fieldName)
+                    .setValue(StringHelper.makeString("{}.timer(\"{}\")",
+                            Metrics.class.getCanonicalName(), escapeString(timerName))));
+
+            String beforeCodes = StringHelper.makeString(
+                    "long $start{} = System.nanoTime();\n" +
+                    "try {\n",
+                    fieldName);
+            String afterCodes = StringHelper.makeString(
+                    "} catch (Throwable $ex) {\n" +
+                    "    {}.error();\n" +
+                    "    throw $ex;\n" +
+                    "} finally {\n" +
+                    "    {}.record(System.nanoTime() - $start{});\n" +
+                    "}\n",
+                    fieldName, fieldName, fieldName);
+            methodBuilder.addAroundCodeBuilders(
+                    CodeMeta.builder().addRawCode(beforeCodes),
+                    CodeMeta.builder().addRawCode(afterCodes));
+        });
+    }
+}
@@ -14,6 +14,8 @@ extends ${className}
 <#list fields as field>
     <#if field.isList>
     ${field.modifiers} java.util.List<${field.typeName}> ${field.name} = new java.util.ArrayList<>();
+    <#elseif field.value??>
+    ${field.modifiers} ${field.typeName} ${field.name} = ${field.value};
     <#else>
     ${field.modifiers} ${field.typeName} ${field.name};
     </#if>
@@ -35,8 +37,22 @@ extends ${className}
     <#list methodInfo.codes as code>
         ${code.code}
     </#list>
-    <#if methodInfo.invokeSuperAfter>
-        super.${methodInfo.name}(<#list methodInfo.parameters as parameter>${parameter.name}<#sep>, </#sep></#list>);
+    <#if methodInfo.invokeSuperAround>
+        <#if !methodInfo.isVoid>
+        ${methodInfo.returnTypeName} $result;
+        </#if>
+        <#list methodInfo.aroundCodes as around>
+        ${around.leftValue.code}
+        </#list>
+        <#if !methodInfo.isVoid>$result = </#if>super.${methodInfo.name}(<#list methodInfo.parameters as parameter>${parameter.name}<#sep>, </#sep></#list>);
+        <#list methodInfo.aroundCodes?reverse as around>
+        ${around.rightValue.code}
+        </#list>
+        <#if !methodInfo.isVoid>
+        return $result;
+        </#if>
+    <#elseif methodInfo.invokeSuperAfter>
+        <#if !methodInfo.isVoid>return </#if>super.${methodInfo.name}(<#list methodInfo.parameters as parameter>${parameter.name}<#sep>, </#sep></#list>);
     </#if>
     }
 
@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.service;
+
+import uapi.helper.ArgumentChecker;
+import uapi.helper.StringHelper;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The critical path is the longest chain of service initializations during registry startup,
+ * the startup can not be faster than the critical path even if there are unlimited threads.
+ * The service ids in the path is ordered from the depended service to the dependent service.
+ */
+public class CriticalPath {
+
+    private final List<String> _svcIds;
+    private final long _elapsedTime;
+
+    public CriticalPath(
+            final List<String> serviceIds,
+            final long elapsedTime
+    ) {
+        ArgumentChecker.notNull(serviceIds, "serviceIds");
+        this._svcIds = Collections.unmodifiableList(serviceIds);
+        this._elapsedTime = elapsedTime;
+    }
+
+    /**
+     * Return qualified service ids on the path
+     *
+     * @return  The qualified service id list
+     */
+    public List<String> getServiceIds() {
+        return this._svcIds;
+    }
+
+    /**
+     * Return the sum of initialization time of all services on the path
+     *
+     * @return  The elapsed time in millisecond
+     */
+    public long getElapsedTime() {
+        return this._elapsedTime;
+    }
+
+    @Override
+    public String toString() {
+        return StringHelper.makeString("CriticalPath[elapsed={}ms, services={}]", this._elapsedTime, this._svcIds);
+    }
+}
@@ -0,0 +1,26 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.service;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Implement this interface will indicate the service is initialized asynchronously,
+ * the services which depend on it are initialized when the returned stage is completed
+ */
+public interface IAsyncInitial {
+
+    /**
+     * Start initializing the object instance, the method should not block
+     *
+     * @return  The stage which is completed when the initialization is finished
+     */
+    CompletionStage<?> initAsync();
+}
@@ -33,7 +33,8 @@ public interface IRegistry extends IInitial {
     ) throws InvalidArgumentException;
 
     /**
-     * Register multiple local services
+     * Register multiple local services, the services are registered as one batch
+     * which is faster than registering them one by one
      *
      * @param   services
      *          The services which will be registered
@@ -106,7 +107,7 @@ public interface IRegistry extends IInitial {
      *          The service id which used for service finding
      * @param   <T>
      *          The service type
-     * @return  The service list
+     * @return  The service list, the list may be unmodifiable
      */
     <T> List<T> findServices(final String serviceId);
 
@@ -117,7 +118,7 @@ public interface IRegistry extends IInitial {
      *          The service type which used for service finding
      * @param   <T>
      *          The service type
-     * @return  The service list
+     * @return  The service list, the list may be unmodifiable
      */
     <T> List<T> findServices(final Class<T> serviceType);
 
@@ -133,10 +134,63 @@ public interface IRegistry extends IInitial {
      */
     <T> T findService(final String serviceId, final String serviceFrom);
 
+    /**
+     * Get a cached handle of the service which is identified by specific service id,
+     * the handle resolves the service at first time and it is invalidated when a service
+     * with same id is registered
+     *
+     * @param   serviceId
+     *          The service id
+     * @param   <T>
+     *          The service type
+     * @return  The service handle
+     */
+    <T> ServiceHandle<T> getHandle(final String serviceId);
+
+    /**
+     * Get a cached handle of the service which is identified by specific service type
+     *
+     * @param   serviceType
+     *          The service type
+     * @param   <T>
+     *          The service type
+     * @return  The service handle
+     */
+    <T> ServiceHandle<T> getHandle(final Class<T> serviceType);
+
+    /**
+     * Return the statistics of the registry, it is used to find the services which are
+     * looked up frequently or the services which are stuck in some state.
+     * The statistics can also be found or injected by IRegistryStats like a service, but it
+     * is not counted as a registered service
+     *
+     * @return  The statistics
+     */
+    IRegistryStats getStats();
+
     /**
      * Invoked when the registry is ready
      */
     void start();
 
+    /**
+     * Start the registry and initialize independent services concurrently,
+     * the service is initialized only after all its dependencies are initialized.
+     *
+     * @param   parallelism
+     *          The max thread count which is used to initialize services
+     * @return  The critical path of the startup
+     */
+    CriticalPath start(int parallelism);
+
+    /**
+     * Register a service loader and load the unresolved services which come from it.
+     * The services are loaded by one loadAll invocation on a shared executor.
+     * If it is invoked during a service initialization, it returns without waiting the
+     * loading and the loaded services are registered after the initialization is done.
+     *
+     * @param   serviceLoader
+     *          The service loader
+     */
     void registerServiceLoader(IServiceLoader serviceLoader);
 }
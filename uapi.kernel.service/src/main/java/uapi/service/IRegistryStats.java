@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The statistics of the registry, all values are accumulated since the registry is created
+ * and all times are in nanoseconds
+ */
+public interface IRegistryStats {
+
+    /**
+     * Return how many times the services are found by specific service id,
+     * the lookups which found nothing are only counted by {@link #getMissCount()}
+     *
+     * @param   serviceId
+     *          The service id
+     * @return  The lookup count
+     */
+    long getLookupCount(String serviceId);
+
+    /**
+     * Return lookup counts of all service ids which were found
+     *
+     * @return  Service id -> lookup count
+     */
+    Map<String, Long> getLookupCounts();
+
+    /**
+     * Return how many lookups found at least one service
+     *
+     * @return  The hit count
+     */
+    long getHitCount();
+
+    /**
+     * Return how many lookups found nothing
+     *
+     * @return  The miss count
+     */
+    long getMissCount();
+
+    /**
+     * Return how many lookups found nothing by specific service id, only the first 256
+     * missed service ids are counted by id, the misses of other ids are only counted by
+     * {@link #getMissCount()}
+     *
+     * @param   serviceId
+     *          The service id
+     * @return  The miss count
+     */
+    long getMissCount(String serviceId);
+
+    /**
+     * Return miss counts of the service ids which are counted by id
+     *
+     * @return  Service id -> miss count
+     */
+    Map<String, Long> getMissCounts();
+
+    /**
+     * Return how many times the registry lock was acquired
+     *
+     * @return  The lock acquired count
+     */
+    long getLockAcquiredCount();
+
+    /**
+     * Return total time spent on waiting for the registry lock
+     *
+     * @return  The wait time
+     */
+    long getLockWaitTime();
+
+    /**
+     * Return total time the registry lock was held
+     *
+     * @return  The hold time
+     */
+    long getLockHoldTime();
+
+    /**
+     * Return how many times the satisfy hooks were evaluated
+     *
+     * @return  The evaluation count
+     */
+    long getSatisfyCheckCount();
+
+    /**
+     * Return total time spent on evaluating satisfy hooks
+     *
+     * @return  The evaluation time
+     */
+    long getSatisfyCheckTime();
+
+    /**
+     * Return the count of registered services in each state, the states are
+     * Unresolved, Resolved, Injected, Satisfied, Initializing, Initialized and Failed
+     *
+     * @return  State -> service count
+     */
+    Map<String, Integer> getStateCounts();
+
+    /**
+     * Return the qualified ids of registered services which are in specific state
+     *
+     * @param   state
+     *          The state name
+     * @return  The qualified service ids
+     */
+    List<String> getServices(String state);
+}
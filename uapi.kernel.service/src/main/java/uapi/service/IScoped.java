@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.service;
+
+/**
+ * Implement this interface will indicate the instances which are created by the
+ * service factory are managed by specific scope
+ */
+public interface IScoped {
+
+    String METHOD_GET_SCOPE             = "getScope";
+    String METHOD_GET_MAX_IDLE          = "getMaxIdle";
+    String METHOD_GET_SERVICE_TYPE      = "getServiceType";
+
+    /**
+     * Return the scope of the created instances
+     *
+     * @return  The scope
+     */
+    Scope getScope();
+
+    /**
+     * Return max idle instances which is kept by the pool, it is used for Pooled scope only
+     *
+     * @return  The max idle instances
+     */
+    int getMaxIdle();
+
+    /**
+     * Return the type of created instances, it must be an interface for Thread and Pooled
+     * scope since the users of the service is injected with a proxy of this type
+     *
+     * @return  The service type
+     */
+    Class<?> getServiceType();
+}
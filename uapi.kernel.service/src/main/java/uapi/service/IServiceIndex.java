@@ -0,0 +1,42 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.service;
+
+/**
+ * The service index list all services of a module, it is generated at compile time
+ * so the services can be created without scanning and reflection at runtime.
+ */
+public interface IServiceIndex {
+
+    /**
+     * Return the class names of indexed services, the names are same as the names
+     * which are listed in the service provider configuration file of IService
+     *
+     * @return  The indexed service class names
+     */
+    String[] getServiceTypes();
+
+    /**
+     * Return the dependency edges between indexed services which are resolved at compile time,
+     * the element at index i lists the indexes of the services which the service at index i
+     * of {@link #getServiceTypes()} depends on, the services out of the index are not listed
+     *
+     * @return  The dependency edges
+     */
+    int[][] getDependencies();
+
+    /**
+     * Create all indexed services, the service is placed after the services which
+     * it depends on if they are in the same index
+     *
+     * @return  The new created services
+     */
+    IService[] createServices();
+}
@@ -9,12 +9,47 @@
 
 package uapi.service;
 
+import uapi.helper.ArgumentChecker;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * A service loader used to load external service
  */
 public interface IServiceLoader {
 
+    /**
+     * The system property which indicate max count of services which are loaded concurrently,
+     * it limits both the service loaders which are loaded by the registry at same time and the
+     * services which are loaded by one loader at same time
+     */
+    String PROP_LOADER_PARALLELISM = "uapi.loader.parallelism";
+
+    int DEFAULT_LOADER_PARALLELISM = 4;
+
     String getName();
 
     <T> T load(final String serviceId);
+
+    /**
+     * Load multiple services, the default implementation loads them one by one.
+     * The loader which can load services in one round trip should override it.
+     *
+     * @param   serviceIds
+     *          The service ids
+     * @return  Service id -> loaded service, the service which can't be loaded is not contained
+     */
+    default Map<String, Object> loadAll(final Collection<String> serviceIds) {
+        ArgumentChecker.notNull(serviceIds, "serviceIds");
+        Map<String, Object> svcs = new HashMap<>();
+        for (String serviceId : serviceIds) {
+            Object svc = load(serviceId);
+            if (svc != null) {
+                svcs.put(serviceId, svc);
+            }
+        }
+        return svcs;
+    }
 }
@@ -0,0 +1,42 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.service;
+
+/**
+ * Indicate how the instances which are created by a service factory are shared
+ * between the users of the service
+ */
+public enum Scope {
+
+    /**
+     * Only one instance is created and it is shared by all users
+     */
+    Singleton,
+
+    /**
+     * A new instance is created for each injection
+     */
+    Prototype,
+
+    /**
+     * Each thread uses its own instance, the users of the service is injected with a proxy
+     */
+    Thread,
+
+    /**
+     * The instances are borrowed from a pool for each method invocation and given back
+     * after the invocation, the users of the service is injected with a proxy.
+     * Two invocations on the proxy may be served by different instances, so the instance
+     * must not keep state between invocations.
+     * Each invocation is dispatched by reflection, so it should be used for heavy and
+     * stateless instances only, like a parser or a connection.
+     */
+    Pooled
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.service;
+
+import uapi.helper.ArgumentChecker;
+import uapi.helper.StringHelper;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The ServiceHandle is a cached reference to a service which is found from the registry.
+ * It is obtained once from IRegistry and the get method only cost a volatile read after
+ * the service is resolved, the registry invalidates the handle when a service with same
+ * id is registered.
+ *
+ * @param   <T>
+ *          The service type
+ */
+public class ServiceHandle<T> {
+
+    private final IRegistry _registry;
+    private final String _svcId;
+    /**
+     * The state is a Resolved instance when the service was resolved, otherwise
+     * it is a stamp object which is changed when the handle is invalidated
+     */
+    private final AtomicReference<Object> _state = new AtomicReference<>(new Object());
+
+    public ServiceHandle(
+            final IRegistry registry,
+            final String serviceId
+    ) {
+        ArgumentChecker.notNull(registry, "registry");
+        ArgumentChecker.notEmpty(serviceId, "serviceId");
+        this._registry = registry;
+        this._svcId = serviceId;
+    }
+
+    public String getServiceId() {
+        return this._svcId;
+    }
+
+    /**
+     * Get the service, the service is resolved from the registry if it is not resolved
+     * or the handle was invalidated
+     *
+     * @return  The service or null if the service is not available
+     */
+    @SuppressWarnings("unchecked")
+    public T get() {
+        Object state = this._state.get();
+        if (state instanceof Resolved) {
+            return ((Resolved<T>) state)._svc;
+        }
+        T svc = this._registry.findService(this._svcId);
+        if (svc != null) {
+            // The handle may be invalidated during resolving, keep it unresolved in that case
+            this._state.compareAndSet(state, new Resolved<>(svc));
+        }
+        return svc;
+    }
+
+    /**
+     * Drop the resolved service, the service will be resolved again at next time
+     */
+    public void invalidate() {
+        this._state.set(new Object());
+    }
+
+    @Override
+    public String toString() {
+        return StringHelper.makeString("ServiceHandle[serviceId={}, resolved={}]",
+                this._svcId, this._state.get() instanceof Resolved);
+    }
+
+    private static final class Resolved<T> {
+
+        private final T _svc;
+
+        private Resolved(final T service) {
+            this._svc = service;
+        }
+    }
+}
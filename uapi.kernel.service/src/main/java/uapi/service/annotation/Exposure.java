@@ -19,7 +19,7 @@ import java.lang.annotation.Target;
  * its id to outside
  */
 @Target(ElementType.TYPE)
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 public @interface Exposure {
 
     String value();
@@ -18,9 +18,11 @@ import java.lang.annotation.Target;
  * The method with this annotation must be invoked
  * after the service instance created and all dependent
  * services has been injected..
+ * If the method returns CompletionStage, the service is initialized asynchronously
+ * and the services which depend on it are initialized when the stage is completed.
  */
 @Target(ElementType.METHOD)
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 public @interface Init {
 
     /**
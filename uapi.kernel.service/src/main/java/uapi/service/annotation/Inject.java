@@ -22,7 +22,7 @@ import java.lang.annotation.Target;
  * Created by min on 16/2/16.
  */
 @Target(ElementType.FIELD)
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 public @interface Inject {
 
     String value() default StringHelper.EMPTY;
@@ -18,6 +18,6 @@ import java.lang.annotation.Target;
  * Indicate specified field is optional
  */
 @Target(ElementType.FIELD)
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 public @interface Optional {
 }
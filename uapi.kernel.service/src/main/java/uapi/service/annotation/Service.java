@@ -9,6 +9,8 @@
 
 package uapi.service.annotation;
 
+import uapi.service.Scope;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -18,10 +20,28 @@ import java.lang.annotation.Target;
  * Indicate the annotated class is a service
  */
 @Target(ElementType.TYPE)
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 public @interface Service {
 
     Class<?>[] value() default {};
 
     String[] ids() default {};
+
+    /**
+     * The scope of the instances which are created by the service, only service which
+     * implements IServiceFactory can declare scope other than Singleton.
+     * The default scope is Prototype, the service factory creates new instance for each injection
+     *
+     * @return  The scope
+     */
+    Scope scope() default Scope.Prototype;
+
+    /**
+     * Max idle instances which are kept by the pool, it is used for Pooled scope only.
+     * It does not limit the instances which are in use, a borrowing from an empty pool
+     * always creates new instance.
+     *
+     * @return  The max idle instances
+     */
+    int maxIdle() default 8;
 }
@@ -14,15 +14,19 @@ import uapi.KernelException;
 import uapi.annotation.*;
 import uapi.helper.ArgumentChecker;
 import uapi.helper.StringHelper;
+import uapi.service.IAsyncInitial;
 import uapi.service.IInitial;
 import uapi.service.annotation.Init;
 
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
+import javax.lang.model.type.TypeMirror;
 import java.lang.annotation.Annotation;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 
 /**
  * A handler used to handle IInitial related annotations
@@ -31,6 +35,8 @@ import java.util.Set;
 public final class InitialHandler extends AnnotationsHandler {
 
     private static final String METHOD_INIT_NAME    = "init";
+    private static final String METHOD_INIT_ASYNC_NAME  = "initAsync";
+    private static final String TYPE_INIT_ASYNC_RETURN  = "java.util.concurrent.CompletionStage<?>";
 //    private static final String METHOD_LAZY_NAME    = "lazy";
 
     @SuppressWarnings("unchecked")
@@ -70,11 +76,26 @@ public final class InitialHandler extends AnnotationsHandler {
             String methodName = methodElement.getSimpleName().toString();
             ClassMeta.Builder clsBuilder = builderCtx.findClassBuilder(classElemt);
             List<MethodMeta.Builder> existing = clsBuilder.findMethodBuilders(METHOD_INIT_NAME);
+            existing.addAll(clsBuilder.findMethodBuilders(METHOD_INIT_ASYNC_NAME));
             if (existing.size() > 0) {
                 throw new KernelException(
                         "Multiple Init annotation was defined in the class {}",
                         classElemt.getSimpleName().toString());
             }
+            if (isAsync(builderCtx, (ExecutableElement) methodElement)) {
+                // The init method returns CompletionStage, the service is initialized asynchronously
+                clsBuilder
+                        .addImplement(IAsyncInitial.class.getCanonicalName())
+                        .addMethodBuilder(MethodMeta.builder()
+                                .addModifier(Modifier.PUBLIC)
+                                .setName(METHOD_INIT_ASYNC_NAME)
+                                .addAnnotationBuilder(AnnotationMeta.builder()
+                                        .setName("Override"))
+                                .addCodeBuilder(CodeMeta.builder()
+                                        .addRawCode(StringHelper.makeString("return super.{}();", methodName)))
+                                .setReturnTypeName(TYPE_INIT_ASYNC_RETURN));
+                return;
+            }
             String initCode = StringHelper.makeString("super.{}();", methodName);
 //            Init init = methodElement.getAnnotation(Init.class);
 //            String lazyCode = StringHelper.makeString("return {};", init.lazy());
@@ -98,4 +119,14 @@ public final class InitialHandler extends AnnotationsHandler {
 //                            .setReturnTypeName(Type.BOOLEAN));
         });
     }
+
+    private boolean isAsync(
+            final IBuilderContext builderCtx,
+            final ExecutableElement methodElement
+    ) {
+        TypeMirror stageType = builderCtx.getTypeUtils().erasure(
+                builderCtx.getElementUtils().getTypeElement(CompletionStage.class.getCanonicalName()).asType());
+        return builderCtx.getTypeUtils().isAssignable(
+                builderCtx.getTypeUtils().erasure(methodElement.getReturnType()), stageType);
+    }
 }
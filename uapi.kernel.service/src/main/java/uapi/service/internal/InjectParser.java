@@ -228,8 +228,21 @@ class InjectParser {
         String paramType = Injection.class.getName();
         builderContext.getBuilders().forEach(classBuilder -> {
             final List<SetterModel> setterModels = new ArrayList<>();
+            final Map<String, String> injectFroms = new HashMap<>();
             classBuilder.findSetterBuilders().forEach(methodBuilder -> {
                 SetterMeta.Builder setterBuilder = (SetterMeta.Builder) methodBuilder;
+                // The generated inject method dispatches by inject id only, so one id can't be
+                // injected from different locations
+                String existingFrom = injectFroms.putIfAbsent(setterBuilder.getInjectId(), setterBuilder.getInjectFrom());
+                if (existingFrom != null && ! existingFrom.equals(setterBuilder.getInjectFrom())) {
+                    throw new KernelException(
+                            "The service {}.{} injects service {} from both {} and {}, inject it once by one field",
+                            classBuilder.getPackageName(),
+                            classBuilder.getClassName(),
+                            setterBuilder.getInjectId(),
+                            existingFrom,
+                            setterBuilder.getInjectFrom());
+                }
                 setterModels.add(new SetterModel(
                         setterBuilder.getName(),
                         setterBuilder.getInjectId(),
@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.service.internal;
+
+import com.google.auto.service.AutoService;
+import uapi.service.IService;
+import uapi.service.IServiceIndex;
+
+/**
+ * The service index for the services of kernel service module, the services of this module
+ * are not generated so the index is written by hand
+ */
+@AutoService(IServiceIndex.class)
+public final class KernelServiceIndex implements IServiceIndex {
+
+    private static final String[] SERVICE_TYPES = new String[] {
+            Registry.class.getName()
+    };
+
+    @Override
+    public String[] getServiceTypes() {
+        return SERVICE_TYPES;
+    }
+
+    private static final int[][] DEPENDENCIES = new int[][] {
+            { }
+    };
+
+    @Override
+    public int[][] getDependencies() {
+        return DEPENDENCIES;
+    }
+
+    @Override
+    public IService[] createServices() {
+        return new IService[] {
+                new Registry()
+        };
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.service.internal;
+
+import com.google.auto.service.AutoService;
+import uapi.KernelException;
+import uapi.annotation.AnnotationsHandler;
+import uapi.annotation.ClassMeta;
+import uapi.annotation.IAnnotationsHandler;
+import uapi.annotation.IBuilderContext;
+import uapi.helper.ArgumentChecker;
+import uapi.service.ILazy;
+import uapi.service.annotation.Lazy;
+import uapi.service.annotation.Service;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import java.lang.annotation.Annotation;
+import java.util.Set;
+
+/**
+ * A handler used to handle Lazy annotation
+ */
+@AutoService(IAnnotationsHandler.class)
+public final class LazyHandler extends AnnotationsHandler {
+
+    @SuppressWarnings("unchecked")
+    private static final Class<? extends Annotation>[] orderedAnnotations = new Class[] { Lazy.class };
+
+    @Override
+    protected Class<? extends Annotation>[] getOrderedAnnotations() {
+        return orderedAnnotations;
+    }
+
+    @Override
+    protected void handleAnnotatedElements(
+            final IBuilderContext builderCtx,
+            final Class<? extends Annotation> annotationType,
+            final Set<? extends Element> elements
+    ) throws KernelException {
+        ArgumentChecker.equals(annotationType, Lazy.class, "annotationType");
+
+        elements.forEach(classElement -> {
+            if (classElement.getKind() != ElementKind.CLASS) {
+                throw new KernelException(
+                        "The Lazy annotation only can be applied on class - {}",
+                        classElement.getSimpleName().toString());
+            }
+            checkAnnotations(classElement, Service.class);
+            builderCtx.checkModifiers(classElement, Lazy.class, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL);
+
+            ClassMeta.Builder classBuilder = builderCtx.findClassBuilder(classElement);
+            classBuilder.addImplement(ILazy.class.getCanonicalName());
+        });
+    }
+}
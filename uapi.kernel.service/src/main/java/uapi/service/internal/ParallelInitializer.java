@@ -0,0 +1,224 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.service.internal;
+
+import uapi.KernelException;
+import uapi.helper.ArgumentChecker;
+import uapi.helper.Guarder;
+import uapi.service.CriticalPath;
+import uapi.service.IAsyncInitial;
+import uapi.service.IInitial;
+
+import java.util.*;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * The ParallelInitializer initialize services on a bounded pool.
+ * The service holder only ask the initializer to initialize its service when all dependencies
+ * of the service are initialized, so the dependency order is kept.
+ * The initialize method is invoked under the registry lock, the service is initialized out of the
+ * lock and the service holder is notified under the lock again.
+ * The asynchronous initialized service is in flight until its initialization stage is completed.
+ */
+class ParallelInitializer implements ServiceHolder.IInitializer {
+
+    private final Lock _lock;
+    private final Condition _drained;
+    private final ForkJoinPool _pool;
+    /**
+     * Service -> initialization task, one service which has multiple ids only be initialized once
+     */
+    private final Map<Object, InitTask> _tasks;
+
+    private final StartupProfiler _profiler;
+
+    private int _inflight = 0;
+    private Throwable _failure;
+
+    ParallelInitializer(
+            final Lock lock,
+            final int parallelism,
+            final StartupProfiler profiler
+    ) {
+        ArgumentChecker.notNull(lock, "lock");
+        ArgumentChecker.checkInt(parallelism, "parallelism", 1, Integer.MAX_VALUE);
+        this._lock = lock;
+        this._drained = lock.newCondition();
+        this._pool = new ForkJoinPool(parallelism);
+        this._tasks = new IdentityHashMap<>();
+        this._profiler = profiler;
+    }
+
+    @Override
+    public boolean initialize(final ServiceHolder svcHolder) {
+        ArgumentChecker.notNull(svcHolder, "svcHolder");
+        Object svc = svcHolder.getService();
+        InitTask task = this._tasks.get(svc);
+        if (task == null) {
+            task = new InitTask(svc, svcHolder.getQualifiedId());
+            task._svcHolders.add(svcHolder);
+            this._tasks.put(svc, task);
+            this._inflight++;
+            this._pool.execute(task);
+            return false;
+        }
+        if (task._done) {
+            if (task._failure != null) {
+                svcHolder.failed(task._failure);
+                return false;
+            }
+            return true;
+        }
+        task._svcHolders.add(svcHolder);
+        return false;
+    }
+
+    /**
+     * Wait until all submitted initialization is finished, the method must be invoked out of the lock
+     *
+     * @param   timeout
+     *          Max milliseconds to wait
+     * @throws  KernelException
+     *          Any service initialization failed, or the initialization was not finished in time
+     */
+    void await(final long timeout) throws KernelException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+        this._lock.lock();
+        try {
+            while (this._inflight > 0) {
+                if (remaining <= 0) {
+                    throw new KernelException("The services were not initialized in {}ms - {}",
+                            timeout, getInflightServices());
+                }
+                remaining = this._drained.awaitNanos(remaining);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new KernelException(ex, "Interrupted when waiting the services to be initialized - {}",
+                    getInflightServices());
+        } finally {
+            this._lock.unlock();
+        }
+        if (this._failure != null) {
+            throw new KernelException(this._failure, "Initialize service failed");
+        }
+    }
+
+    private List<QualifiedServiceId> getInflightServices() {
+        List<QualifiedServiceId> inflight = new ArrayList<>();
+        this._tasks.values().stream()
+                .filter(task -> ! task._done)
+                .forEach(task -> inflight.add(task._qsId));
+        return inflight;
+    }
+
+    void shutdown() {
+        this._pool.shutdown();
+        try {
+            this._pool.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Calculate the critical path from specific service holders, the cost of a service is
+     * its initialization time plus the max cost of its dependencies.
+     *
+     * @param   svcHolders
+     *          All service holders
+     * @return  The critical path
+     */
+    CriticalPath getCriticalPath(final Collection<ServiceHolder> svcHolders) {
+        return StartupProfiler.calculateCriticalPath(svcHolders, svcHolder -> {
+            InitTask task = this._tasks.get(svcHolder.getService());
+            return task == null ? 0 : task._elapsed;
+        });
+    }
+
+    private final class InitTask implements Runnable {
+
+        private final Object _svc;
+        private final QualifiedServiceId _qsId;
+        private final List<ServiceHolder> _svcHolders = new LinkedList<>();
+        private boolean _done = false;
+        private long _elapsed = 0;
+        private Throwable _failure;
+
+        private InitTask(
+                final Object svc,
+                final QualifiedServiceId qsId
+        ) {
+            this._svc = svc;
+            this._qsId = qsId;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            if (this._svc instanceof IAsyncInitial) {
+                CompletionStage<?> stage;
+                try {
+                    stage = ((IAsyncInitial) this._svc).initAsync();
+                    if (stage == null) {
+                        throw new KernelException("The service {} returned null initialization stage", this._qsId);
+                    }
+                } catch (Throwable t) {
+                    completed(start, t);
+                    return;
+                }
+                stage.whenComplete((result, failure) -> completed(start, failure));
+                return;
+            }
+            Throwable failure = null;
+            try {
+                ((IInitial) this._svc).init();
+            } catch (Throwable t) {
+                failure = t;
+            }
+            completed(start, failure);
+        }
+
+        private void completed(final long start, final Throwable failure) {
+            long elapsed = System.nanoTime() - start;
+            if (ParallelInitializer.this._profiler != null) {
+                ParallelInitializer.this._profiler.record(this._qsId, StartupProfiler.PHASE_INIT, start, null);
+            }
+            Guarder.by(ParallelInitializer.this._lock).run(() -> {
+                this._done = true;
+                this._elapsed = elapsed;
+                this._failure = failure;
+                try {
+                    if (failure != null) {
+                        if (ParallelInitializer.this._failure == null) {
+                            ParallelInitializer.this._failure = failure;
+                        }
+                        this._svcHolders.forEach(svcHolder -> svcHolder.failed(failure));
+                    } else {
+                        this._svcHolders.forEach(ServiceHolder::initialized);
+                    }
+                } catch (Throwable t) {
+                    if (ParallelInitializer.this._failure == null) {
+                        ParallelInitializer.this._failure = t;
+                    }
+                } finally {
+                    ParallelInitializer.this._inflight--;
+                    if (ParallelInitializer.this._inflight == 0) {
+                        ParallelInitializer.this._drained.signalAll();
+                    }
+                }
+            });
+        }
+    }
+}
@@ -14,6 +14,10 @@ import uapi.helper.ArgumentChecker;
 import uapi.helper.Pair;
 import uapi.helper.StringHelper;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * The QualifiedServiceId indicate service id and where is the service from
  */
@@ -36,25 +40,84 @@ public class QualifiedServiceId extends Pair<String, String> {
      */
     public static final String FROM_LOCAL   = "Local";
 
+    /**
+     * Max count of interned qualified service ids
+     */
+    private static final int MAX_INTERNED_IDS = 8192;
+
+    /**
+     * Service id -> service from -> canonical qualified service id
+     */
+    private static final Map<String, Map<String, QualifiedServiceId>> interned = new ConcurrentHashMap<>();
+    private static final AtomicInteger internedCount = new AtomicInteger();
+
     public static QualifiedServiceId splitTo(String combined) {
         return splitTo(combined, LOCATION);
     }
 
+    /**
+     * Split combined string to qualified service id, the separator is matched literally
+     * and it must be appeared only once in the combined string
+     *
+     * @param   combined
+     *          The combined string like service@location
+     * @param   separator
+     *          The separator
+     * @return  The canonical qualified service id
+     */
     public static QualifiedServiceId splitTo(String combined, String separator) {
         ArgumentChecker.notEmpty(combined, "combined");
         ArgumentChecker.notEmpty(separator, "separator");
-        String[] split = combined.split(separator);
-        if (split.length == 2) {
-            return new QualifiedServiceId(split[0], split[1]);
-        } else {
+        int idx = combined.indexOf(separator);
+        if (idx < 0 || idx != combined.lastIndexOf(separator) || idx + separator.length() >= combined.length()) {
             throw new InvalidArgumentException(
                     "The argument {} can not be separated to one or two value by separator {}",
                     combined, separator);
         }
+        return of(combined.substring(0, idx), combined.substring(idx + separator.length()));
+    }
+
+    /**
+     * Return the canonical qualified service id, same id and from always return same instance,
+     * so the lookup does not allocate any object once the qualified service id is created.
+     * The ids are interned until the table is full, then a new instance is returned for the
+     * id which is not interned, it is still equal to other instances of the same id
+     *
+     * @param   id
+     *          The service id
+     * @param   from
+     *          Where is the service from
+     * @return  The canonical qualified service id
+     */
+    public static QualifiedServiceId of(String id, String from) {
+        ArgumentChecker.notNull(id, "id");
+        ArgumentChecker.notNull(from, "from");
+        Map<String, QualifiedServiceId> froms = interned.get(id);
+        if (froms != null) {
+            QualifiedServiceId qsId = froms.get(from);
+            if (qsId != null) {
+                return qsId;
+            }
+        }
+        if (internedCount.get() >= MAX_INTERNED_IDS) {
+            return new QualifiedServiceId(id, from);
+        }
+        if (froms == null) {
+            froms = interned.computeIfAbsent(id, key -> new ConcurrentHashMap<>());
+        }
+        return froms.computeIfAbsent(from, key -> {
+            internedCount.incrementAndGet();
+            return new QualifiedServiceId(id, from);
+        });
     }
 
+    private final int _hash;
+    private volatile QualifiedServiceId _anyLocation;
+    private volatile String _combined;
+
     public QualifiedServiceId(String leftValue, String rightValue) {
         super(leftValue, rightValue);
+        this._hash = super.hashCode();
     }
 
     public String getId() {
@@ -65,6 +128,20 @@ public class QualifiedServiceId extends Pair<String, String> {
         return getRightValue();
     }
 
+    /**
+     * Return the canonical qualified service id which has same id and can be matched any location
+     *
+     * @return  The qualified service id which from is Any
+     */
+    public QualifiedServiceId getAnyLocation() {
+        QualifiedServiceId anyLocation = this._anyLocation;
+        if (anyLocation == null) {
+            anyLocation = of(getId(), FROM_ANY);
+            this._anyLocation = anyLocation;
+        }
+        return anyLocation;
+    }
+
     /**
      * Check this qualified service id can be assigned to specific qualified service id.
      * Assignment means for example Local can be assigned to Any
@@ -96,8 +173,29 @@ public class QualifiedServiceId extends Pair<String, String> {
         return false;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (! (o instanceof QualifiedServiceId) || this._hash != ((QualifiedServiceId) o)._hash) {
+            return false;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return this._hash;
+    }
+
     @Override
     public String toString() {
-        return StringHelper.makeString("{}@{}", getId(), getFrom());
+        String combined = this._combined;
+        if (combined == null) {
+            combined = StringHelper.makeString("{}@{}", getId(), getFrom());
+            this._combined = combined;
+        }
+        return combined;
     }
 }
@@ -23,9 +23,8 @@ import uapi.service.*;
 
 import java.lang.ref.WeakReference;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.*;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Stream;
 
 /**
@@ -35,18 +34,105 @@ import java.util.stream.Stream;
 @AutoService(IService.class)
 public class Registry implements IRegistry, IService, IInjectable {
 
-    private final Lock _unsatisfiedLock;
+    /**
+     * The system property which indicate the file path of startup profile,
+     * the startup is not profiled if it is not set
+     */
+    public static final String PROP_STARTUP_PROFILE = "uapi.startup.profile";
+
+    /**
+     * The system property which indicate the file path of registry snapshot, the resolved
+     * dependency graph is saved into the file and it is reused at next start if the same
+     * services are registered, the snapshot is not used if it is not set
+     */
+    public static final String PROP_REGISTRY_SNAPSHOT = "uapi.registry.snapshot";
+
+    /**
+     * The system property which indicate max count of service loaders which load external
+     * services concurrently, each service loader is loaded by one task of a shared executor
+     */
+    public static final String PROP_LOADER_PARALLELISM = IServiceLoader.PROP_LOADER_PARALLELISM;
+
+    /**
+     * The system property which indicate max milliseconds to wait for the services which are
+     * initialized in parallel when the registry is started
+     */
+    public static final String PROP_START_TIMEOUT = "uapi.registry.start.timeout";
+
+    private static final long DEFAULT_START_TIMEOUT = 60000L;
+
+    private final RegistryStats.InstrumentedLock _unsatisfiedLock;
     private final SatisfyDecider _satisfyDecider;
+    /**
+     * Service id -> service holders
+     */
     private final Multimap<String, ServiceHolder> _unsatisfiedSvcs;
+    /**
+     * Qualified service id -> service holders
+     */
+    private final Multimap<QualifiedServiceId, ServiceHolder> _qualifiedSvcs;
+    /**
+     * Dependent service id -> service holders which depend on the service id
+     */
+    private final Multimap<String, ServiceHolder> _dependents;
+    /**
+     * Service id -> published services, only contains service id which all its services are initialized,
+     * the published list is immutable and it is read without lock
+     */
+    private final Map<String, List<Object>> _publishedSvcs;
+    /**
+     * Qualified service id -> published services, same as _publishedSvcs
+     */
+    private final Map<QualifiedServiceId, List<Object>> _publishedQualifiedSvcs;
+    /**
+     * Service id -> service handle
+     */
+    private final Map<String, ServiceHandle<?>> _handles;
     private final List<WeakReference<ISatisfyHook>> _satisfyHooks;
     private final Map<String, IServiceLoader> _serviceLoaders;
+    /**
+     * Service loader name -> the failure of loading which was not waited by the registering thread
+     */
+    private final Map<String, Throwable> _loadFailures;
+    private final String _profileFile;
+    private final StartupProfiler _profiler;
+    private final String _snapshotFile;
+    private final int _loaderParallelism;
+    private final long _startTimeout;
+    private final RegistryStats _stats;
+    /**
+     * The holder of the statistics, it is wired to the services which depend on the statistics
+     * but it is not put into the indexes, so it is not counted as a registered service
+     */
+    private final ServiceHolder _statsHolder;
+
+    private volatile ExecutorService _loaderExecutor;
 
     public Registry() {
-        this._unsatisfiedLock = new ReentrantLock();
+        this._stats = new RegistryStats(this::copyServiceHolders);
+        this._unsatisfiedLock = this._stats.newLock();
         this._unsatisfiedSvcs = LinkedListMultimap.create();
+        this._qualifiedSvcs = LinkedListMultimap.create();
+        this._dependents = LinkedListMultimap.create();
+        this._publishedSvcs = new ConcurrentHashMap<>();
+        this._publishedQualifiedSvcs = new ConcurrentHashMap<>();
+        this._handles = new ConcurrentHashMap<>();
         this._satisfyHooks = new CopyOnWriteArrayList<>();
         this._satisfyDecider = new SatisfyDecider();
         this._serviceLoaders = new HashMap<>();
+        this._loadFailures = new ConcurrentHashMap<>();
+        this._profileFile = System.getProperty(PROP_STARTUP_PROFILE);
+        this._profiler = this._profileFile == null ? null : new StartupProfiler();
+        this._snapshotFile = System.getProperty(PROP_REGISTRY_SNAPSHOT);
+        this._loaderParallelism = Integer.getInteger(PROP_LOADER_PARALLELISM, IServiceLoader.DEFAULT_LOADER_PARALLELISM);
+        this._startTimeout = Long.getLong(PROP_START_TIMEOUT, DEFAULT_START_TIMEOUT);
+
+        // Make the statistics can be found or injected by other services
+        this._statsHolder = new ServiceHolder(
+                QualifiedServiceId.FROM_LOCAL, this._stats, IRegistryStats.class.getCanonicalName(), this._satisfyDecider);
+        List<Object> published = Collections.singletonList(this._stats);
+        this._publishedSvcs.put(this._statsHolder.getId(), published);
+        this._publishedQualifiedSvcs.put(this._statsHolder.getQualifiedId(), published);
     }
 
     private volatile boolean _inited = false;
@@ -57,9 +143,11 @@ public class Registry implements IRegistry, IService, IInjectable {
             return;
         }
         this._inited = true;
-        Observable.from(this._unsatisfiedSvcs.values())
-                .filter(svcHolder -> svcHolder.getService() != this)
-                .subscribe(ServiceHolder::tryInitService);
+        Guarder.by(this._unsatisfiedLock).run(() ->
+                Observable.from(orderByDependency(this._unsatisfiedSvcs.values()))
+                        .filter(svcHolder -> svcHolder.getService() != this)
+                        .filter(svcHolder -> ! svcHolder.isLazy())
+                        .subscribe(ServiceHolder::tryInitService));
     }
 
     @Override
@@ -78,7 +166,33 @@ public class Registry implements IRegistry, IService, IInjectable {
     public void register(
             final IService... services
     ) throws InvalidArgumentException {
-        Stream.of(services).forEach(this::register);
+        ArgumentChecker.notNull(services, "services");
+        List<ServiceHolder> svcHolders = new ArrayList<>();
+        Stream.of(services).forEach(svc -> svcHolders.addAll(createServiceHolders(svc)));
+        String snapshotFile = this._snapshotFile;
+        if (snapshotFile == null) {
+            Guarder.by(this._unsatisfiedLock).run(() -> addServiceHolders(svcHolders));
+            return;
+        }
+        // Read and write the snapshot out of the lock, only the result is applied under the lock
+        long hash = RegistrySnapshot.hash(svcHolders);
+        int[][] snapshot = RegistrySnapshot.read(snapshotFile, hash, svcHolders.size());
+        int[][] resolved = Guarder.by(this._unsatisfiedLock).runForResult(() -> {
+            // The snapshot only covers the services which are registered into empty registry
+            if (! this._unsatisfiedSvcs.isEmpty()) {
+                addServiceHolders(svcHolders);
+                return null;
+            }
+            if (snapshot != null) {
+                restoreServiceHolders(svcHolders, snapshot);
+                return null;
+            }
+            addServiceHolders(svcHolders);
+            return RegistrySnapshot.collect(svcHolders);
+        });
+        if (resolved != null) {
+            RegistrySnapshot.write(snapshotFile, hash, resolved);
+        }
     }
 
     @Override
@@ -123,36 +237,37 @@ public class Registry implements IRegistry, IService, IInjectable {
     @Override
     public <T> List<T> findServices(final Class<T> serviceType) {
         ArgumentChecker.notNull(serviceType, "serviceType");
-        return findService(serviceType.getName());
+        return findServices(serviceType.getName());
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <T> List<T> findServices(final String serviceId) {
         ArgumentChecker.notEmpty(serviceId, "serviceId");
-        List<T> resolvedSvcs = new ArrayList<>();
-        Guarder.by(this._unsatisfiedLock).run(() ->
-            Observable.from(this._unsatisfiedSvcs.values())
-                    .filter(svcHolder -> svcHolder.getId().equals(serviceId))
-                    .filter(ServiceHolder::tryInitService)
-                    .map(ServiceHolder::getService)
-                    .subscribe(svcHolder -> resolvedSvcs.add((T) svcHolder))
-        );
-        return resolvedSvcs;
+        List<Object> published = this._publishedSvcs.get(serviceId);
+        if (published != null) {
+            this._stats.lookup(serviceId, true);
+            return (List<T>) published;
+        }
+        List<Object> found = Guarder.by(this._unsatisfiedLock).runForResult(() ->
+                resolveServices(this._unsatisfiedSvcs.get(serviceId), serviceId, this._publishedSvcs));
+        this._stats.lookup(serviceId, found.size() > 0);
+        return (List<T>) found;
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <T> T findService(final String serviceId, final String serviceFrom) {
-        List<T> found = Guarder.by(this._unsatisfiedLock).runForResult(() ->
-                (List<T>) Observable.from(this._unsatisfiedSvcs.values())
-                .filter(svcHolder -> svcHolder.getId().equals(serviceId))
-                .filter(svcHolder -> svcHolder.getFrom().equals(serviceFrom))
-                .filter(ServiceHolder::tryInitService)
-                .map(ServiceHolder::getService)
-                .toList().toBlocking().single()
-        );
-        if (found == null || found.size() == 0) {
+        ArgumentChecker.notEmpty(serviceId, "serviceId");
+        ArgumentChecker.notEmpty(serviceFrom, "serviceFrom");
+        final QualifiedServiceId qsId = QualifiedServiceId.of(serviceId, serviceFrom);
+        List<T> found = (List<T>) this._publishedQualifiedSvcs.get(qsId);
+        if (found == null) {
+            found = (List<T>) Guarder.by(this._unsatisfiedLock).runForResult(() ->
+                    resolveServices(this._qualifiedSvcs.get(qsId), qsId, this._publishedQualifiedSvcs));
+        }
+        this._stats.lookup(serviceId, found.size() > 0);
+        if (found.size() == 0) {
             return null;
         }
         if (found.size() == 1) {
@@ -161,10 +276,106 @@ public class Registry implements IRegistry, IService, IInjectable {
         throw new KernelException("Find multiple service by service id {}@{}", serviceId, serviceFrom);
     }
 
-    public void start() {
-        Observable.from(this._unsatisfiedSvcs.values())
-                .doOnNext(ServiceHolder::start)
+    @Override
+    public IRegistryStats getStats() {
+        return this._stats;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> ServiceHandle<T> getHandle(final String serviceId) {
+        ArgumentChecker.notEmpty(serviceId, "serviceId");
+        return (ServiceHandle<T>) this._handles.computeIfAbsent(serviceId, id -> new ServiceHandle<>(this, id));
+    }
+
+    @Override
+    public <T> ServiceHandle<T> getHandle(final Class<T> serviceType) {
+        ArgumentChecker.notNull(serviceType, "serviceType");
+        return getHandle(serviceType.getName());
+    }
+
+    /**
+     * Try to initialize specified service holders and return their services, the services will be
+     * published for lock-free reading if all of them are initialized.
+     * The method must be invoked under the lock
+     *
+     * @param   svcHolders
+     *          The service holders which are mapped to the key
+     * @param   key
+     *          The key which is used to publish the services
+     * @param   publishedSvcs
+     *          The published service map
+     * @param   <K>
+     *          The key type
+     * @return  The initialized services
+     */
+    private <K> List<Object> resolveServices(
+            final Collection<ServiceHolder> svcHolders,
+            final K key,
+            final Map<K, List<Object>> publishedSvcs) {
+        List<Object> svcs = new ArrayList<>(svcHolders.size());
+        List<ServiceHolder> orderedHolders = orderByDependency(svcHolders);
+        // Initialize dependencies first to avoid deep recursion on long dependency chains
+        Observable.from(orderedHolders)
+                .filter(svcHolder -> ! svcHolders.contains(svcHolder))
                 .subscribe(ServiceHolder::tryInitService);
+        Observable.from(svcHolders)
+                .filter(ServiceHolder::tryInitService)
+                .map(ServiceHolder::getService)
+                .subscribe(svcs::add);
+        svcHolders.forEach(ServiceHolder::checkFailure);
+        if (svcs.size() != svcHolders.size() && this._loadFailures.size() > 0) {
+            orderedHolders.forEach(this::checkLoadFailure);
+        }
+        if (svcs.size() == 0 || svcs.size() != svcHolders.size()) {
+            return svcs;
+        }
+        List<Object> published = Collections.unmodifiableList(svcs);
+        publishedSvcs.put(key, published);
+        return published;
+    }
+
+    public void start() {
+        // The asynchronous initialization is completed under the lock, so the states are changed under the lock too
+        List<ServiceHolder> svcHolders = Guarder.by(this._unsatisfiedLock).runForResult(() -> {
+            List<ServiceHolder> holders = orderByDependency(this._unsatisfiedSvcs.values());
+            Observable.from(holders)
+                    .filter(svcHolder -> ! svcHolder.isLazy())
+                    .doOnNext(ServiceHolder::start)
+                    .subscribe(ServiceHolder::tryInitService);
+            return holders;
+        });
+        if (this._profiler != null) {
+            this._profiler.write(this._profileFile, StartupProfiler.calculateCriticalPath(
+                    svcHolders, svcHolder -> this._profiler.getCost(svcHolder.getQualifiedId())));
+        }
+    }
+
+    @Override
+    public CriticalPath start(final int parallelism) {
+        final ParallelInitializer initializer =
+                new ParallelInitializer(this._unsatisfiedLock, parallelism, this._profiler);
+        final List<ServiceHolder> svcHolders = Guarder.by(this._unsatisfiedLock).runForResult(() -> {
+            List<ServiceHolder> holders = orderByDependency(this._unsatisfiedSvcs.values());
+            // The lazy services are initialized by the initializer too if they are depended by others
+            holders.forEach(svcHolder -> svcHolder.setInitializer(initializer));
+            holders.stream()
+                    .filter(svcHolder -> ! svcHolder.isLazy())
+                    .forEach(ServiceHolder::start);
+            return holders;
+        });
+        try {
+            initializer.await(this._startTimeout);
+        } finally {
+            // The services which are not initialized will be initialized in caller thread later
+            Guarder.by(this._unsatisfiedLock).run(() -> svcHolders.forEach(svcHolder -> svcHolder.setInitializer(null)));
+            initializer.shutdown();
+        }
+        CriticalPath criticalPath = initializer.getCriticalPath(svcHolders);
+        if (this._profiler != null) {
+            this._profiler.write(this._profileFile, criticalPath);
+        }
+        return criticalPath;
     }
 
     @Override
@@ -180,15 +391,111 @@ public class Registry implements IRegistry, IService, IInjectable {
                     existing, name);
         }
 
-        Observable.from(this._unsatisfiedSvcs.values())
-                .filter(ServiceHolder::isUninited)
-                .flatMap(serviceHolder -> Observable.from(serviceHolder.getUnresolvedServices(name)))
-                .subscribe(svcId -> {
-                    Object svc = serviceLoader.load(svcId);
-                    if (svc != null) {
-                        this.register(name, svc, svcId);
-                    }
-                });
+        List<String> svcIds = Guarder.by(this._unsatisfiedLock).runForResult(() ->
+                Observable.from(new ArrayList<>(this._unsatisfiedSvcs.values()))
+                        .filter(ServiceHolder::isUninited)
+                        .flatMap(serviceHolder -> Observable.from(serviceHolder.getUnresolvedServices(name)))
+                        .distinct()
+                        .toList().toBlocking().single());
+        if (svcIds.size() == 0) {
+            return;
+        }
+        // Load services out of the lock since the loading may be slow
+        CompletableFuture<Void> loading = CompletableFuture.runAsync(
+                () -> loadServices(serviceLoader, svcIds), loaderExecutor());
+        if (this._unsatisfiedLock.isHeldByCurrentThread()) {
+            // Invoked from a service initialization which is under the lock, the loaded
+            // services can't be registered until the lock is released, so don't wait it.
+            // If the loading is failed, the failure is reported when the services which
+            // depend on them are looked up
+            loading.whenComplete((result, failure) -> {
+                if (failure != null) {
+                    this._loadFailures.put(name, failure instanceof CompletionException ? failure.getCause() : failure);
+                }
+            });
+            return;
+        }
+        try {
+            loading.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new KernelException(ex.getCause(), "Load services by {} failed", name);
+        }
+    }
+
+    /**
+     * Load services by one loadAll invocation of specific service loader and register them
+     *
+     * @param   serviceLoader
+     *          The service loader
+     * @param   svcIds
+     *          The ids of services which will be loaded
+     */
+    private void loadServices(
+            final IServiceLoader serviceLoader,
+            final List<String> svcIds) {
+        String name = serviceLoader.getName();
+        Map<String, Object> svcs = loadAll(serviceLoader, svcIds);
+        List<ServiceHolder> svcHolders = new ArrayList<>();
+        svcIds.stream()
+                .filter(svcs::containsKey)
+                .forEach(svcId -> svcHolders.addAll(
+                        createServiceHolders(name, svcs.get(svcId), new String[] { svcId }, new String[0])));
+        Guarder.by(this._unsatisfiedLock).run(() -> addServiceHolders(svcHolders));
+    }
+
+    /**
+     * Throw the failure if specific service holder is not initialized since the service loader
+     * which loads its dependencies was failed, the method must be invoked under the lock
+     *
+     * @param   svcHolder
+     *          The service holder
+     * @throws  KernelException
+     *          Loading the dependencies of the service was failed
+     */
+    private void checkLoadFailure(final ServiceHolder svcHolder) throws KernelException {
+        if (svcHolder.isInited()) {
+            return;
+        }
+        this._loadFailures.forEach((name, failure) -> {
+            List<String> unloadedIds = svcHolder.getUnresolvedServices(name);
+            if (unloadedIds.size() > 0) {
+                throw new KernelException(failure,
+                        "Initialize service {} failed since loading its dependencies {} by {} was failed",
+                        svcHolder.getQualifiedId(), unloadedIds, name);
+            }
+        });
+    }
+
+    private ExecutorService loaderExecutor() {
+        if (this._loaderExecutor == null) {
+            synchronized (this) {
+                if (this._loaderExecutor == null) {
+                    this._loaderExecutor = Executors.newFixedThreadPool(this._loaderParallelism, task -> {
+                        Thread thread = new Thread(task, "service-loader");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return this._loaderExecutor;
+    }
+
+    private Map<String, Object> loadAll(
+            final IServiceLoader serviceLoader,
+            final Collection<String> svcIds) {
+        Map<String, Object> svcs = serviceLoader.loadAll(svcIds);
+        if (svcs == null) {
+            throw new KernelException("The service loader {} returned null services", serviceLoader.getName());
+        }
+        return svcs;
+    }
+
+    private Collection<ServiceHolder> copyServiceHolders() {
+        return Guarder.by(this._unsatisfiedLock).runForResult(() -> new ArrayList<>(this._unsatisfiedSvcs.values()));
     }
 
     int getCount() {
@@ -197,12 +504,27 @@ public class Registry implements IRegistry, IService, IInjectable {
 
     private void registerService(
             final IService svc) {
+        Observable.from(createServiceHolders(svc))
+                .subscribe(svcHolder -> Guarder.by(this._unsatisfiedLock).run(() -> addServiceHolder(svcHolder)));
+    }
+
+    private void registerService(
+            final String svcFrom,
+            final Object svc,
+            final String[] svcIds,
+            final String[] dependencyIds) {
+        Observable.from(createServiceHolders(svcFrom, svc, svcIds, dependencyIds))
+                .subscribe(svcHolder -> Guarder.by(this._unsatisfiedLock).run(() -> addServiceHolder(svcHolder)));
+    }
+
+    private List<ServiceHolder> createServiceHolders(
+            final IService svc) {
         final String[] svcIds = svc.getIds();
         final String[] dependencyIds = svc instanceof IInjectable ? ((IInjectable) svc).getDependentIds() : new String[0];
-        registerService(QualifiedServiceId.FROM_LOCAL, svc, svcIds, dependencyIds);
+        return createServiceHolders(QualifiedServiceId.FROM_LOCAL, svc, svcIds, dependencyIds);
     }
 
-    private void registerService(
+    private List<ServiceHolder> createServiceHolders(
             final String svcFrom,
             final Object svc,
             final String[] svcIds,
@@ -213,21 +535,165 @@ public class Registry implements IRegistry, IService, IInjectable {
             throw new InvalidArgumentException("The service id is required - {}", svc.getClass().getName());
         }
 
-        Observable.from(svcIds)
+        return Observable.from(svcIds)
                 .map(svcId -> new ServiceHolder(svcFrom, svc, svcId, dependencyIds, this._satisfyDecider))
-                .subscribe(svcHolder -> {
-                    Guarder.by(this._unsatisfiedLock).run(() -> {
-                        // Check whether the new register service depends on existing service
-                        Observable.from(this._unsatisfiedSvcs.values())
-                                .filter(existingSvc -> svcHolder.isDependsOn(existingSvc.getId()))
-                                .subscribe(svcHolder::setDependency);
-                        // Check whether existing service depends on the new register service
-                        Observable.from(this._unsatisfiedSvcs.values())
-                                .filter(existingSvc -> existingSvc.isDependsOn(svcHolder.getId()))
-                                .subscribe(existingSvc -> existingSvc.setDependency(svcHolder));
-                        this._unsatisfiedSvcs.put(svcHolder.getId(), svcHolder);
-                    });
-                });
+                .doOnNext(svcHolder -> svcHolder.setProfiler(this._profiler))
+                .toList().toBlocking().single();
+    }
+
+    /**
+     * Wire the service holders by the dependency indexes which is read from snapshot instead of
+     * looking up the indexes, the method must be invoked under the lock
+     *
+     * @param   svcHolders
+     *          The service holders in registration order
+     * @param   dependencies
+     *          The indexes of dependencies of each service holder
+     */
+    private void restoreServiceHolders(
+            final List<ServiceHolder> svcHolders,
+            final int[][] dependencies) {
+        svcHolders.forEach(this::indexServiceHolder);
+        for (int i = 0; i < svcHolders.size(); i++) {
+            ServiceHolder svcHolder = svcHolders.get(i);
+            for (int idx : dependencies[i]) {
+                svcHolder.resolveDependency(svcHolders.get(idx));
+            }
+        }
+    }
+
+    /**
+     * Wire the new service holder with existing service holders by looking up the indexes
+     * and put it into the indexes, the method must be invoked under the lock
+     *
+     * @param   svcHolder
+     *          The new service holder
+     */
+    private void addServiceHolder(final ServiceHolder svcHolder) {
+        // Check whether the new register service depends on existing service
+        Observable.from(svcHolder.getDependentIds())
+                .flatMap(dependentId -> Observable.from(findHolders(dependentId)))
+                .subscribe(svcHolder::setDependency);
+        // Check whether existing service depends on the new register service
+        Observable.from(this._dependents.get(svcHolder.getId()))
+                .filter(existingSvc -> existingSvc.isDependsOn(svcHolder.getQualifiedId()))
+                .subscribe(existingSvc -> existingSvc.setDependency(svcHolder));
+        indexServiceHolder(svcHolder);
+    }
+
+    /**
+     * Wire a batch of new service holders in one pass, the new service holders are put into
+     * the indexes first, so both the edges between new service holders and the edges from new
+     * service holders to existing service holders are found by looking up the indexes once per
+     * dependency, then the edges from existing service holders are found by the dependents index.
+     * The result is same as adding the service holders one by one, but the existing dependents
+     * go on once for the whole batch instead of once per edge.
+     * The method must be invoked under the lock
+     *
+     * @param   svcHolders
+     *          The new service holders
+     */
+    private void addServiceHolders(final List<ServiceHolder> svcHolders) {
+        Set<ServiceHolder> newHolders = Collections.newSetFromMap(new IdentityHashMap<>());
+        newHolders.addAll(svcHolders);
+        svcHolders.forEach(this::indexServiceHolder);
+        List<ServiceHolder> existingDependents = new ArrayList<>();
+        for (ServiceHolder svcHolder : svcHolders) {
+            for (QualifiedServiceId dependentId : svcHolder.getDependentIds()) {
+                for (ServiceHolder dependency : findHolders(dependentId)) {
+                    // A service never depends on itself, it is not wired when adding one by one too
+                    if (dependency != svcHolder) {
+                        svcHolder.resolveDependency(dependency);
+                    }
+                }
+            }
+        }
+        for (ServiceHolder svcHolder : svcHolders) {
+            for (ServiceHolder existingSvc : this._dependents.get(svcHolder.getId())) {
+                if (! newHolders.contains(existingSvc) && existingSvc.isDependsOn(svcHolder.getQualifiedId())) {
+                    existingSvc.resolveDependency(svcHolder);
+                    existingDependents.add(existingSvc);
+                }
+            }
+        }
+        existingDependents.stream()
+                .filter(ServiceHolder::isStarted)
+                .forEach(ServiceHolder::tryInitService);
+    }
+
+    /**
+     * Put the service holder into the indexes, the method must be invoked under the lock
+     *
+     * @param   svcHolder
+     *          The new service holder
+     */
+    private void indexServiceHolder(final ServiceHolder svcHolder) {
+        svcHolder.setLock(this._unsatisfiedLock);
+        this._unsatisfiedSvcs.put(svcHolder.getId(), svcHolder);
+        this._qualifiedSvcs.put(svcHolder.getQualifiedId(), svcHolder);
+        // The published services for the id are stale now, the readers will fall back to lock path
+        this._publishedSvcs.remove(svcHolder.getId());
+        this._publishedQualifiedSvcs.remove(svcHolder.getQualifiedId());
+        ServiceHandle<?> handle = this._handles.get(svcHolder.getId());
+        if (handle != null) {
+            handle.invalidate();
+        }
+        Observable.from(svcHolder.getDependentIds())
+                .map(QualifiedServiceId::getId)
+                .distinct()
+                .subscribe(dependentId -> this._dependents.put(dependentId, svcHolder));
+    }
+
+    /**
+     * Order specific service holders and their uninitialized dependencies by post order, the
+     * dependencies are placed before the services which depend on them.
+     * The service holder initializes its dependencies recursively, initializing the services by
+     * this order keeps the recursion shallow even for long dependency chains.
+     *
+     * @param   svcHolders
+     *          The service holders
+     * @return  The ordered service holders
+     */
+    private static List<ServiceHolder> orderByDependency(final Collection<ServiceHolder> svcHolders) {
+        List<ServiceHolder> ordered = new ArrayList<>(svcHolders.size());
+        Set<ServiceHolder> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<ServiceHolder> path = new ArrayDeque<>();
+        Deque<Iterator<ServiceHolder>> pathDependencies = new ArrayDeque<>();
+        for (ServiceHolder svcHolder : svcHolders) {
+            if (! visited.add(svcHolder)) {
+                continue;
+            }
+            path.push(svcHolder);
+            pathDependencies.push(svcHolder.getDependencies().iterator());
+            while (! path.isEmpty()) {
+                Iterator<ServiceHolder> dependencies = pathDependencies.peek();
+                if (dependencies.hasNext()) {
+                    ServiceHolder dependency = dependencies.next();
+                    // The dependencies of initialized service are initialized already
+                    if (dependency.isUninited() && visited.add(dependency)) {
+                        path.push(dependency);
+                        pathDependencies.push(dependency.getDependencies().iterator());
+                    }
+                } else {
+                    pathDependencies.pop();
+                    ordered.add(path.pop());
+                }
+            }
+        }
+        return ordered;
+    }
+
+    private List<ServiceHolder> findHolders(final QualifiedServiceId dependentId) {
+        List<ServiceHolder> svcHolders;
+        if (QualifiedServiceId.FROM_ANY.equals(dependentId.getFrom())) {
+            svcHolders = new ArrayList<>(this._unsatisfiedSvcs.get(dependentId.getId()));
+        } else {
+            svcHolders = new ArrayList<>(this._qualifiedSvcs.get(dependentId));
+        }
+        if (this._statsHolder.getQualifiedId().isAssignTo(dependentId)) {
+            svcHolders.add(this._statsHolder);
+        }
+        return svcHolders;
     }
 
     @Override
@@ -272,6 +738,15 @@ public class Registry implements IRegistry, IService, IInjectable {
 
         @Override
         public boolean isSatisfied(IServiceReference serviceRef) {
+            long startTime = System.nanoTime();
+            try {
+                return checkHooks(serviceRef);
+            } finally {
+                Registry.this._stats.satisfyChecked(startTime);
+            }
+        }
+
+        private boolean checkHooks(IServiceReference serviceRef) {
             boolean containsNull = false;
             boolean isSatisfied = true;
             for (WeakReference<ISatisfyHook> hookRef : Registry.this._satisfyHooks) {
@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.service.internal;
+
+import uapi.KernelException;
+import uapi.helper.ArgumentChecker;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The RegistrySnapshot persists the resolved dependency graph of registered service holders.
+ * The graph is stored by holder index which is the registration order, and it is keyed by
+ * a hash of the service types, service ids and dependency ids, so the graph can be reused
+ * only when the same services are registered in the same order.
+ *
+ * The file layout is: magic, version, hash, holder count, then for each holder the count of
+ * its dependencies followed by the indexes of the dependencies.
+ */
+class RegistrySnapshot {
+
+    private static final int MAGIC      = 0x55415253;   // UARS
+    private static final int VERSION    = 1;
+
+    private static final long FNV_OFFSET    = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME     = 0x100000001b3L;
+
+    private RegistrySnapshot() { }
+
+    /**
+     * Calculate the hash of specific service holders, the hash is changed when any service,
+     * service id or dependency id is changed, or the registration order is changed
+     *
+     * @param   svcHolders
+     *          The service holders in registration order
+     * @return  The hash
+     */
+    static long hash(final List<ServiceHolder> svcHolders) {
+        ArgumentChecker.notNull(svcHolders, "svcHolders");
+        long hash = FNV_OFFSET;
+        for (ServiceHolder svcHolder : svcHolders) {
+            hash = hash(hash, svcHolder.getService().getClass().getName());
+            hash = hash(hash, svcHolder.getQualifiedId().toString());
+            for (QualifiedServiceId dependentId : svcHolder.getDependentIds()) {
+                hash = hash(hash, dependentId.toString());
+            }
+            // Separate holders to avoid same hash when dependencies are moved to next holder
+            hash = (hash ^ 0xff) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, final String value) {
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+        }
+        // Terminate the value by a zero byte, so "ab" + "c" is different with "a" + "bc"
+        return hash * FNV_PRIME;
+    }
+
+    /**
+     * Read dependency graph from specific file
+     *
+     * @param   file
+     *          The snapshot file
+     * @param   hash
+     *          The expected hash
+     * @param   count
+     *          The expected count of service holders
+     * @return  The dependency indexes of each holder or null if the file does not exist,
+     *          the file is broken or it does not match the expected hash
+     */
+    static int[][] read(
+            final String file,
+            final long hash,
+            final int count
+    ) {
+        ArgumentChecker.notEmpty(file, "file");
+        Path path = Paths.get(file);
+        if (! Files.isRegularFile(path)) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION
+                    || input.readLong() != hash || input.readInt() != count) {
+                return null;
+            }
+            int[][] edges = new int[count][];
+            for (int i = 0; i < count; i++) {
+                int edgeCount = input.readInt();
+                if (edgeCount < 0 || edgeCount > count) {
+                    return null;
+                }
+                edges[i] = new int[edgeCount];
+                for (int j = 0; j < edgeCount; j++) {
+                    int idx = input.readInt();
+                    if (idx < 0 || idx >= count) {
+                        return null;
+                    }
+                    edges[i][j] = idx;
+                }
+            }
+            return edges;
+        } catch (IOException ex) {
+            // The broken snapshot is treated as missing, it will be rewritten
+            return null;
+        }
+    }
+
+    /**
+     * Collect resolved dependency graph of specific service holders, the graph only
+     * references the service holders by their index in the list
+     *
+     * @param   svcHolders
+     *          The service holders in registration order
+     * @return  The dependency indexes of each service holder or null if some service
+     *          depends on a service which is not in the list, like the registry statistics
+     */
+    static int[][] collect(final List<ServiceHolder> svcHolders) {
+        ArgumentChecker.notNull(svcHolders, "svcHolders");
+        Map<ServiceHolder, Integer> indexes = new IdentityHashMap<>();
+        for (int i = 0; i < svcHolders.size(); i++) {
+            indexes.put(svcHolders.get(i), i);
+        }
+        int[][] graph = new int[svcHolders.size()][];
+        for (int i = 0; i < svcHolders.size(); i++) {
+            ServiceHolder svcHolder = svcHolders.get(i);
+            List<ServiceHolder> dependencies = svcHolder.getDependencies();
+            graph[i] = new int[dependencies.size()];
+            for (int j = 0; j < dependencies.size(); j++) {
+                Integer idx = indexes.get(dependencies.get(j));
+                if (idx == null) {
+                    return null;
+                }
+                graph[i][j] = idx;
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Write dependency graph which is collected by {@link #collect(List)} into specific file
+     *
+     * @param   file
+     *          The snapshot file
+     * @param   hash
+     *          The hash of the service holders
+     * @param   dependencies
+     *          The dependency indexes of each service holder
+     */
+    static void write(
+            final String file,
+            final long hash,
+            final int[][] dependencies
+    ) {
+        ArgumentChecker.notEmpty(file, "file");
+        ArgumentChecker.notNull(dependencies, "dependencies");
+        Path path = Paths.get(file);
+        Path tmpPath = Paths.get(file + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpPath)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeLong(hash);
+                output.writeInt(dependencies.length);
+                for (int[] svcDependencies : dependencies) {
+                    output.writeInt(svcDependencies.length);
+                    for (int idx : svcDependencies) {
+                        output.writeInt(idx);
+                    }
+                }
+            }
+            // Replace the old snapshot at once, the reader never see a partial file
+            Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            throw new KernelException(ex, "Write registry snapshot to {} failed", file);
+        }
+    }
+}
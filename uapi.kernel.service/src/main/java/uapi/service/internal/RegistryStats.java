@@ -0,0 +1,259 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.service.internal;
+
+import uapi.helper.ArgumentChecker;
+import uapi.service.IRegistryStats;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * The RegistryStats collects the statistics of the registry by LongAdder counters,
+ * the counters are updated without contention between threads
+ */
+class RegistryStats implements IRegistryStats {
+
+    /**
+     * Max count of service ids whose missed lookups are counted by id
+     */
+    static final int MAX_MISSED_IDS = 256;
+
+    private final Map<String, LongAdder> _lookups = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> _missedLookups = new ConcurrentHashMap<>();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _lockAcquired = new LongAdder();
+    private final LongAdder _lockWaitTime = new LongAdder();
+    private final LongAdder _lockHoldTime = new LongAdder();
+    private final LongAdder _satisfyChecks = new LongAdder();
+    private final LongAdder _satisfyCheckTime = new LongAdder();
+    private final Supplier<Collection<ServiceHolder>> _svcHolders;
+
+    /**
+     * Create registry statistics
+     *
+     * @param   svcHolders
+     *          The supplier which returns a copy of all registered service holders
+     */
+    RegistryStats(final Supplier<Collection<ServiceHolder>> svcHolders) {
+        ArgumentChecker.notNull(svcHolders, "svcHolders");
+        this._svcHolders = svcHolders;
+    }
+
+    /**
+     * Record a lookup, the lookup which found services is counted by service id.
+     * The missed service id may be any value, so the missed lookups are counted by id for
+     * the first MAX_MISSED_IDS ids only, the misses of other ids are counted by the total
+     *
+     * @param   serviceId
+     *          The looked up service id
+     * @param   hit
+     *          Whether the lookup found services
+     */
+    void lookup(
+            final String serviceId,
+            final boolean hit
+    ) {
+        if (! hit) {
+            LongAdder misses = this._missedLookups.get(serviceId);
+            if (misses == null && this._missedLookups.size() < MAX_MISSED_IDS) {
+                misses = this._missedLookups.computeIfAbsent(serviceId, id -> new LongAdder());
+            }
+            if (misses != null) {
+                misses.increment();
+            }
+            this._misses.increment();
+            return;
+        }
+        LongAdder lookups = this._lookups.get(serviceId);
+        if (lookups == null) {
+            lookups = this._lookups.computeIfAbsent(serviceId, id -> new LongAdder());
+        }
+        lookups.increment();
+        this._hits.increment();
+    }
+
+    void satisfyChecked(final long startTime) {
+        this._satisfyChecks.increment();
+        this._satisfyCheckTime.add(System.nanoTime() - startTime);
+    }
+
+    /**
+     * Create a lock which records wait time and hold time into this statistics
+     *
+     * @return  The lock
+     */
+    InstrumentedLock newLock() {
+        return new InstrumentedLock();
+    }
+
+    @Override
+    public long getLookupCount(final String serviceId) {
+        ArgumentChecker.notEmpty(serviceId, "serviceId");
+        LongAdder lookups = this._lookups.get(serviceId);
+        return lookups == null ? 0 : lookups.sum();
+    }
+
+    @Override
+    public Map<String, Long> getLookupCounts() {
+        Map<String, Long> lookups = new HashMap<>();
+        this._lookups.forEach((svcId, count) -> lookups.put(svcId, count.sum()));
+        return lookups;
+    }
+
+    @Override
+    public long getHitCount() {
+        return this._hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return this._misses.sum();
+    }
+
+    @Override
+    public long getMissCount(final String serviceId) {
+        ArgumentChecker.notEmpty(serviceId, "serviceId");
+        LongAdder misses = this._missedLookups.get(serviceId);
+        return misses == null ? 0 : misses.sum();
+    }
+
+    @Override
+    public Map<String, Long> getMissCounts() {
+        Map<String, Long> misses = new HashMap<>();
+        this._missedLookups.forEach((svcId, count) -> misses.put(svcId, count.sum()));
+        return misses;
+    }
+
+    @Override
+    public long getLockAcquiredCount() {
+        return this._lockAcquired.sum();
+    }
+
+    @Override
+    public long getLockWaitTime() {
+        return this._lockWaitTime.sum();
+    }
+
+    @Override
+    public long getLockHoldTime() {
+        return this._lockHoldTime.sum();
+    }
+
+    @Override
+    public long getSatisfyCheckCount() {
+        return this._satisfyChecks.sum();
+    }
+
+    @Override
+    public long getSatisfyCheckTime() {
+        return this._satisfyCheckTime.sum();
+    }
+
+    @Override
+    public Map<String, Integer> getStateCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        this._svcHolders.get().forEach(svcHolder -> counts.merge(svcHolder.getStateName(), 1, Integer::sum));
+        return counts;
+    }
+
+    @Override
+    public List<String> getServices(final String state) {
+        ArgumentChecker.notEmpty(state, "state");
+        List<String> svcs = new ArrayList<>();
+        this._svcHolders.get().stream()
+                .filter(svcHolder -> svcHolder.getStateName().equals(state))
+                .forEach(svcHolder -> svcs.add(svcHolder.getQualifiedId().toString()));
+        return svcs;
+    }
+
+    /**
+     * A reentrant lock which records time spent on waiting and holding, the hold time
+     * is counted from the outermost lock to the outermost unlock, so it contains the time
+     * of waiting on the conditions of the lock
+     */
+    final class InstrumentedLock implements Lock {
+
+        private final ReentrantLock _lock = new ReentrantLock();
+        /**
+         * The time when the lock is acquired, only the owner thread accesses it
+         */
+        private long _acquiredTime;
+
+        @Override
+        public void lock() {
+            long start = System.nanoTime();
+            this._lock.lock();
+            acquired(start);
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            long start = System.nanoTime();
+            this._lock.lockInterruptibly();
+            acquired(start);
+        }
+
+        @Override
+        public boolean tryLock() {
+            long start = System.nanoTime();
+            if (! this._lock.tryLock()) {
+                return false;
+            }
+            acquired(start);
+            return true;
+        }
+
+        @Override
+        public boolean tryLock(
+                final long time,
+                final TimeUnit unit
+        ) throws InterruptedException {
+            long start = System.nanoTime();
+            if (! this._lock.tryLock(time, unit)) {
+                return false;
+            }
+            acquired(start);
+            return true;
+        }
+
+        @Override
+        public void unlock() {
+            if (this._lock.getHoldCount() == 1) {
+                RegistryStats.this._lockHoldTime.add(System.nanoTime() - this._acquiredTime);
+            }
+            this._lock.unlock();
+        }
+
+        @Override
+        public Condition newCondition() {
+            return this._lock.newCondition();
+        }
+
+        boolean isHeldByCurrentThread() {
+            return this._lock.isHeldByCurrentThread();
+        }
+
+        private void acquired(final long startTime) {
+            if (this._lock.getHoldCount() == 1) {
+                this._acquiredTime = System.nanoTime();
+                RegistryStats.this._lockWaitTime.add(this._acquiredTime - startTime);
+                RegistryStats.this._lockAcquired.increment();
+            }
+        }
+    }
+}
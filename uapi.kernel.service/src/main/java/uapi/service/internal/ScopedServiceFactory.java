@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.service.internal;
+
+import uapi.KernelException;
+import uapi.helper.ArgumentChecker;
+import uapi.helper.ObjectPool;
+import uapi.helper.StringHelper;
+import uapi.service.IScoped;
+import uapi.service.IServiceFactory;
+import uapi.service.Scope;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * The ScopedServiceFactory wraps a scoped service factory and creates the instance which
+ * is injected to the users of the service according to the scope of the factory.
+ * Each injection of Thread and Pooled scope get a proxy which holds its own thread local
+ * instances or pool, so the serveFor argument is still meaningful to the service factory.
+ * The Pooled proxy borrows an instance for each invocation and releases it after the
+ * invocation, no instance is bound to the injection, the pool keeps at most max idle
+ * instances and creates new instance when no idle one is available.
+ */
+class ScopedServiceFactory {
+
+    private final IServiceFactory<?> _factory;
+    private final Scope _scope;
+    private final int _maxIdle;
+    private final Class<?> _svcType;
+
+    private volatile Object _singleton;
+
+    ScopedServiceFactory(final IServiceFactory<?> factory) {
+        ArgumentChecker.notNull(factory, "factory");
+        if (! (factory instanceof IScoped)) {
+            throw new KernelException("The service factory {} is not scoped", factory.getClass().getName());
+        }
+        IScoped scoped = (IScoped) factory;
+        this._factory = factory;
+        this._scope = scoped.getScope();
+        this._maxIdle = scoped.getMaxIdle();
+        this._svcType = scoped.getServiceType();
+        ArgumentChecker.notNull(this._scope, "scope");
+        ArgumentChecker.notNull(this._svcType, "serviceType");
+        if ((this._scope == Scope.Thread || this._scope == Scope.Pooled) && ! this._svcType.isInterface()) {
+            throw new KernelException("The service type {} of scope {} must be an interface",
+                    this._svcType.getName(), this._scope);
+        }
+    }
+
+    Scope getScope() {
+        return this._scope;
+    }
+
+    /**
+     * Create the instance which will be injected to specific service
+     *
+     * @param   serveFor
+     *          The service which uses the created instance
+     * @return  The instance or a scoped proxy
+     */
+    Object createService(final Object serveFor) {
+        switch (this._scope) {
+            case Singleton:
+                if (this._singleton == null) {
+                    synchronized (this) {
+                        if (this._singleton == null) {
+                            this._singleton = create(serveFor);
+                        }
+                    }
+                }
+                return this._singleton;
+            case Prototype:
+                return create(serveFor);
+            case Thread:
+                ThreadLocal<Object> local = ThreadLocal.withInitial(() -> create(serveFor));
+                return newProxy(method -> invoke(local.get(), method));
+            case Pooled:
+                ObjectPool<Object> pool = new ObjectPool<>(this._maxIdle, () -> create(serveFor));
+                return newProxy(method -> {
+                    Object svc = pool.borrow();
+                    try {
+                        return invoke(svc, method);
+                    } finally {
+                        pool.release(svc);
+                    }
+                });
+            default:
+                throw new KernelException("Unsupported scope {}", this._scope);
+        }
+    }
+
+    private Object create(final Object serveFor) {
+        Object svc = this._factory.createService(serveFor);
+        if (svc == null) {
+            throw new KernelException("The service factory {} created null service for {}",
+                    this._factory.getClass().getName(), serveFor);
+        }
+        return svc;
+    }
+
+    private Object newProxy(final IInvoker invoker) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return StringHelper.makeString("ScopedProxy[type={}, scope={}]",
+                                this._svcType.getName(), this._scope);
+                    default:
+                        break;
+                }
+            }
+            return invoker.invoke(new MethodCall(method, args));
+        };
+        return Proxy.newProxyInstance(this._svcType.getClassLoader(), new Class<?>[] { this._svcType }, handler);
+    }
+
+    private static Object invoke(
+            final Object target,
+            final MethodCall call
+    ) throws Throwable {
+        try {
+            return call._method.invoke(target, call._args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface IInvoker {
+
+        Object invoke(MethodCall call) throws Throwable;
+    }
+
+    private static final class MethodCall {
+
+        private final Method _method;
+        private final Object[] _args;
+
+        private MethodCall(
+                final Method method,
+                final Object[] args
+        ) {
+            this._method = method;
+            this._args = args;
+        }
+    }
+}
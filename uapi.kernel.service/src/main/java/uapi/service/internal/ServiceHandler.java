@@ -17,13 +17,17 @@ import uapi.KernelException;
 import uapi.annotation.*;
 import uapi.helper.ArgumentChecker;
 import uapi.helper.StringHelper;
+import uapi.Type;
+import uapi.service.IScoped;
 import uapi.service.IService;
 import uapi.service.IServiceHandlerHelper;
 import uapi.service.IServiceFactory;
+import uapi.service.Scope;
 import uapi.service.annotation.Service;
 
 import javax.lang.model.element.*;
 import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
 import java.lang.annotation.Annotation;
 import java.util.*;
 
@@ -43,6 +47,7 @@ public final class ServiceHandler extends AnnotationsHandler {
     private static final String MODEL_GET_IDS               = "ModelGetId";
 
     private final ServiceHandlerHelper _helper = new ServiceHandlerHelper();
+    private final ServiceIndexGenerator _indexGenerator = new ServiceIndexGenerator();
 
     @Override
     protected Class<? extends Annotation>[] getOrderedAnnotations() {
@@ -73,14 +78,16 @@ public final class ServiceHandler extends AnnotationsHandler {
             AnnotationMirror svcAnnoMirror = MoreElements.getAnnotationMirror(classElement, Service.class).get();
             Service service = classElement.getAnnotation(Service.class);
             String[] serviceIds = mergeId(getTypesInAnnotation(svcAnnoMirror, "value", builderCtx.getLogger()), service.ids());
+            TypeMirror factoryType = Observable.from(((TypeElement) classElement).getInterfaces())
+                    .filter(declareType -> declareType.toString().startsWith(IServiceFactory.class.getName()))
+                    .map(declareType -> ((DeclaredType) declareType).getTypeArguments().get(0))
+                    .toBlocking().firstOrDefault(null);
             if (serviceIds.length == 0) {
                 final StringBuilder svcId = new StringBuilder();
                 // Check service factory type argument first
-                Observable.from(((TypeElement) classElement).getInterfaces())
-                        .filter(declareType -> declareType.toString().startsWith(IServiceFactory.class.getName()))
-                        .map(declareType -> ((DeclaredType) declareType).getTypeArguments().get(0))
-                        .subscribe(svcId::append);
-                if (svcId.length() == 0) {
+                if (factoryType != null) {
+                    svcId.append(factoryType);
+                } else {
                     // If the service is not a factory, using service class type
                     svcId.append(StringHelper.makeString("{}.{}",
                             classBuilder.getPackageName(), classElement.getSimpleName().toString()));
@@ -111,6 +118,10 @@ public final class ServiceHandler extends AnnotationsHandler {
                                     .setTemplate(tempGetIds)
                                     .setModel(classBuilder.getTransience(MODEL_GET_IDS))));
 
+            if (isScopeDeclared(svcAnnoMirror)) {
+                addScope(classElement, classBuilder, service, factoryType);
+            }
+
             // Put model to the class builder to make other handler can modify it by helper
 //            classBuilder.putTransience(MODEL_GET_IDS, tempModelGetIds);
             // Add helper
@@ -119,6 +130,70 @@ public final class ServiceHandler extends AnnotationsHandler {
         });
     }
 
+    @Override
+    public void processingOver(
+            final IBuilderContext builderContext
+    ) throws KernelException {
+        this._indexGenerator.generate(builderContext);
+    }
+
+    private boolean isScopeDeclared(final AnnotationMirror serviceAnnotation) {
+        return Observable.from(serviceAnnotation.getElementValues().keySet())
+                .filter(method -> method.getSimpleName().contentEquals("scope"))
+                .toBlocking().firstOrDefault(null) != null;
+    }
+
+    private void addScope(
+            final Element classElement,
+            final ClassMeta.Builder classBuilder,
+            final Service service,
+            final TypeMirror factoryType
+    ) {
+        Scope scope = service.scope();
+        if (factoryType == null) {
+            if (scope == Scope.Singleton) {
+                return;
+            }
+            throw new KernelException(
+                    "The scope {} only can be declared on the service which implements IServiceFactory - {}",
+                    scope, classElement.getSimpleName().toString());
+        }
+        Element typeElement = ((DeclaredType) factoryType).asElement();
+        if ((scope == Scope.Thread || scope == Scope.Pooled) && typeElement.getKind() != ElementKind.INTERFACE) {
+            throw new KernelException(
+                    "The service type must be an interface for scope {} since it is injected by proxy - {}",
+                    scope, classElement.getSimpleName().toString());
+        }
+        if (scope == Scope.Pooled && service.maxIdle() <= 0) {
+            throw new KernelException(
+                    "The max idle instances must be more than 0 - {}", classElement.getSimpleName().toString());
+        }
+        classBuilder
+                .addImplement(IScoped.class.getCanonicalName())
+                .addMethodBuilder(MethodMeta.builder()
+                        .addAnnotationBuilder(AnnotationMeta.builder().setName(AnnotationMeta.OVERRIDE))
+                        .setName(IScoped.METHOD_GET_SCOPE)
+                        .addModifier(Modifier.PUBLIC)
+                        .setReturnTypeName(Scope.class.getCanonicalName())
+                        .addCodeBuilder(CodeMeta.builder()
+                                .addRawCode(StringHelper.makeString("return {}.{};", Scope.class.getCanonicalName(), scope.name()))))
+                .addMethodBuilder(MethodMeta.builder()
+                        .addAnnotationBuilder(AnnotationMeta.builder().setName(AnnotationMeta.OVERRIDE))
+                        .setName(IScoped.METHOD_GET_MAX_IDLE)
+                        .addModifier(Modifier.PUBLIC)
+                        .setReturnTypeName(Type.INTEGER)
+                        .addCodeBuilder(CodeMeta.builder()
+                                .addRawCode(StringHelper.makeString("return {};", service.maxIdle()))))
+                .addMethodBuilder(MethodMeta.builder()
+                        .addAnnotationBuilder(AnnotationMeta.builder().setName(AnnotationMeta.OVERRIDE))
+                        .setName(IScoped.METHOD_GET_SERVICE_TYPE)
+                        .addModifier(Modifier.PUBLIC)
+                        .setReturnTypeName("Class<?>")
+                        .addCodeBuilder(CodeMeta.builder()
+                                .addRawCode(StringHelper.makeString("return {}.class;",
+                                        ((TypeElement) typeElement).getQualifiedName().toString()))));
+    }
+
     private String[] mergeId(List<String> serviceTypes, String[] serviceIds) {
         List<String> ids = new ArrayList<>();
         Observable.from(serviceTypes).subscribe(ids::add);
@@ -171,6 +246,7 @@ public final class ServiceHandler extends AnnotationsHandler {
                 idArr = idList.toArray(new String[idList.size()]);
             }
             tempGetIdsModel.put(VAR_SVC_IDS, idArr);
+            ServiceHandler.this._indexGenerator.addServiceIds(classBuilder, serviceIds);
         }
     }
 }
@@ -16,10 +16,13 @@ import uapi.InvalidArgumentException;
 import uapi.KernelException;
 import uapi.helper.ArgumentChecker;
 import uapi.helper.CollectionHelper;
+import uapi.helper.Guarder;
 import uapi.helper.StringHelper;
 import uapi.service.*;
 
 import java.util.*;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.locks.Lock;
 
 /**
  * The ServiceHolder hold specific service with its id and dependencies
@@ -32,10 +35,14 @@ class ServiceHolder implements IServiceReference {
     private final QualifiedServiceId _qualifiedSvcId;
     private final Multimap<QualifiedServiceId, ServiceHolder> _dependencies;
     private final ISatisfyHook _satisfyHook;
-    private final List<IStateMonitor> _stateMonitors;
+    private final Set<IStateMonitor> _stateMonitors;
     private final StateManagement _stateManagement;
+    private final ScopedServiceFactory _scopedFactory;
 
-    private boolean _started = false;
+    private volatile boolean _started = false;
+    private IInitializer _initializer;
+    private StartupProfiler _profiler;
+    private Lock _lock;
 
     ServiceHolder(
             final String from,
@@ -61,10 +68,10 @@ class ServiceHolder implements IServiceReference {
         this._svc = service;
         this._svcId = serviceId;
         this._from = from;
-        this._qualifiedSvcId = new QualifiedServiceId(serviceId, from);
+        this._qualifiedSvcId = QualifiedServiceId.of(serviceId, from);
         this._satisfyHook = satisfyHook;
         this._dependencies = LinkedListMultimap.create();
-        this._stateMonitors = new LinkedList<>();
+        this._stateMonitors = new LinkedHashSet<>();
 
         Observable.from(dependencies)
                 .map(dependency -> QualifiedServiceId.splitTo(dependency, QualifiedServiceId.LOCATION))
@@ -72,6 +79,8 @@ class ServiceHolder implements IServiceReference {
 
         // Create StateMonitor here since it need read dependencies information.
         this._stateManagement = new StateManagement();
+        this._scopedFactory = service instanceof IServiceFactory && service instanceof IScoped
+                ? new ScopedServiceFactory((IServiceFactory<?>) service) : null;
     }
 
     @Override
@@ -105,16 +114,92 @@ class ServiceHolder implements IServiceReference {
 
     void addStateMonitor(IStateMonitor monitor) {
         this._stateMonitors.add(monitor);
-        Observable.from(this._dependencies.entries())
-                .filter(entry -> entry.getValue() != null)
-                .map(Map.Entry::getValue)
-                .subscribe(dependency -> dependency.addStateMonitor(this._stateManagement));
+    }
+
+    /**
+     * Set the initializer which is used to initialize the service asynchronously,
+     * null means the service will be initialized in current thread
+     *
+     * @param   initializer
+     *          The initializer or null
+     */
+    void setInitializer(IInitializer initializer) {
+        this._initializer = initializer;
+    }
+
+    /**
+     * Set the profiler which records state transitions and time spent on each phase,
+     * null means the service holder is not profiled
+     *
+     * @param   profiler
+     *          The profiler or null
+     */
+    void setProfiler(StartupProfiler profiler) {
+        this._profiler = profiler;
+    }
+
+    /**
+     * Set the lock which guards the state changes, it is used when the asynchronous
+     * initialization is completed in other thread, null means no lock is required
+     *
+     * @param   lock
+     *          The lock or null
+     */
+    void setLock(Lock lock) {
+        this._lock = lock;
+    }
+
+    /**
+     * Invoked by the initializer when the service is initialized asynchronously
+     */
+    void initialized() {
+        this._stateManagement.initCompleted(null);
+    }
+
+    /**
+     * Invoked by the initializer when the service initialization is failed asynchronously,
+     * the services which depend on it are failed too
+     *
+     * @param   failure
+     *          The failure
+     */
+    void failed(Throwable failure) {
+        ArgumentChecker.notNull(failure, "failure");
+        this._stateManagement.initCompleted(failure);
+    }
+
+    /**
+     * Return resolved dependencies
+     *
+     * @return  The resolved dependency service holders
+     */
+    List<ServiceHolder> getDependencies() {
+        return Observable.from(this._dependencies.values())
+                .filter(dependency -> dependency != null)
+                .toList().toBlocking().single();
+    }
+
+    Set<QualifiedServiceId> getDependentIds() {
+        return new LinkedHashSet<>(this._dependencies.keySet());
+    }
+
+    void setDependency(ServiceHolder service) {
+        resolveDependency(service);
         if (this._started) {
             this._stateManagement.goon();
         }
     }
 
-    void setDependency(ServiceHolder service) {
+    /**
+     * Set the dependency and monitor it without moving current service holder forward, it is used
+     * to wire a batch of service holders, the caller must let the started dependents go on.
+     * Only the new edge is monitored, the edges of the dependency were monitored when they were
+     * set, so wiring a service does not walk the dependency graph
+     *
+     * @param   service
+     *          The dependency
+     */
+    void resolveDependency(ServiceHolder service) {
         ArgumentChecker.notNull(service, "service");
 
         if (! isDependsOn(service.getQualifiedId())) {
@@ -127,35 +212,36 @@ class ServiceHolder implements IServiceReference {
         }
         this._dependencies.remove(qsvcId, null);
         this._dependencies.put(qsvcId, service);
-
         service.addStateMonitor(this._stateManagement);
-        if (this._started) {
-            this._stateManagement.goon();
-        }
     }
 
+    boolean isStarted() {
+        return this._started;
+    }
+
+    /**
+     * Find the dependent id which matches specific qualified service id, it is the qualified
+     * service id itself or the one with same id but can be from any location
+     */
     private QualifiedServiceId findDependentId(QualifiedServiceId qsId) {
-        return Observable.from(this._dependencies.keySet())
-                .filter(dpendQsvcId -> dpendQsvcId.getId().equals(qsId.getId()))
-                .filter(dpendQsvcId -> dpendQsvcId.getFrom().equals(QualifiedServiceId.FROM_ANY) || dpendQsvcId.equals(qsId))
-                .toBlocking().firstOrDefault(null);
+        if (this._dependencies.containsKey(qsId)) {
+            return qsId;
+        }
+        QualifiedServiceId anyLocation = qsId.getAnyLocation();
+        if (this._dependencies.containsKey(anyLocation)) {
+            return anyLocation;
+        }
+        return null;
     }
 
     boolean isDependsOn(final String serviceId) {
         ArgumentChecker.notEmpty(serviceId, "serviceId");
-        return isDependsOn(new QualifiedServiceId(serviceId, QualifiedServiceId.FROM_LOCAL));
+        return isDependsOn(QualifiedServiceId.of(serviceId, QualifiedServiceId.FROM_LOCAL));
     }
 
     boolean isDependsOn(QualifiedServiceId qualifiedServiceId) {
         ArgumentChecker.notNull(qualifiedServiceId, "qualifiedServiceId");
-        if (this._dependencies.containsKey(qualifiedServiceId)) {
-            return true;
-        }
-
-        if (findDependentId(qualifiedServiceId) != null) {
-            return true;
-        }
-        return false;
+        return findDependentId(qualifiedServiceId) != null;
     }
 
     List<String> getUnresolvedServices(String from) {
@@ -169,6 +255,15 @@ class ServiceHolder implements IServiceReference {
         return ids;
     }
 
+    /**
+     * Return the name of current state, it is used for statistics only
+     *
+     * @return  The state name
+     */
+    String getStateName() {
+        return this._stateManagement._state.name();
+    }
+
     boolean isInited() {
         return this._stateManagement._state == State.Initialized;
     }
@@ -177,7 +272,44 @@ class ServiceHolder implements IServiceReference {
         return this._stateManagement._state != State.Initialized;
     }
 
+    boolean isFailed() {
+        return this._stateManagement._state == State.Failed;
+    }
+
+    /**
+     * Throw the failure if the service initialization was failed
+     *
+     * @throws  KernelException
+     *          The service or its dependency was failed to initialize
+     */
+    void checkFailure() throws KernelException {
+        StateManagement stateMgmt = this._stateManagement;
+        if (stateMgmt._state != State.Failed) {
+            return;
+        }
+        if (stateMgmt._failedDependency == null) {
+            throw new KernelException(stateMgmt._failure,
+                    "Initialize service {} asynchronously failed", this._qualifiedSvcId);
+        }
+        throw new KernelException(stateMgmt._failure,
+                "Initialize service {} failed since its dependency {} was failed",
+                this._qualifiedSvcId, stateMgmt._failedDependency);
+    }
+
+    /**
+     * Check whether the service is activated on demand
+     *
+     * @return  true means the service is not initialized when the registry is started
+     */
+    boolean isLazy() {
+        return this._svc instanceof ILazy;
+    }
+
     boolean tryInitService() {
+        if (! this._started && isLazy()) {
+            // The lazy service is activated by first lookup or first injected use
+            this._started = true;
+        }
         return this._stateManagement.goon();
     }
 
@@ -187,20 +319,82 @@ class ServiceHolder implements IServiceReference {
                 this._qualifiedSvcId, this._svc.getClass().getName(), this._dependencies);
     }
 
+    /**
+     * Notifications which are not delivered yet in current thread, it is null if no notification
+     * is being delivered in current thread
+     */
+    private static final ThreadLocal<Deque<Runnable>> pendingNotifications = new ThreadLocal<>();
+
+    /**
+     * Deliver a state notification, the notification which is raised during delivering another
+     * notification is queued and delivered after it, so a long chain of services which are
+     * initialized by notifications does not make deep recursion
+     *
+     * @param   notification
+     *          The notification
+     */
+    private static void deliver(final Runnable notification) {
+        Deque<Runnable> pending = pendingNotifications.get();
+        if (pending != null) {
+            pending.add(notification);
+            return;
+        }
+        pending = new ArrayDeque<>();
+        pendingNotifications.set(pending);
+        try {
+            for (Runnable next = notification; next != null; next = pending.poll()) {
+                next.run();
+            }
+        } finally {
+            pendingNotifications.remove();
+        }
+    }
+
     private enum State {
-        Unresolved, Resolved, Injected, Satisfied, Initialized
+        Unresolved, Resolved, Injected, Satisfied, Initializing, Initialized, Failed
+    }
+
+    /**
+     * The initializer initialize service in other thread
+     */
+    interface IInitializer {
+
+        /**
+         * Initialize the service which is hold by specific service holder, the initializer
+         * must invoke ServiceHolder.initialized or ServiceHolder.failed method when the service
+         * is initialized asynchronously
+         *
+         * @param   svcHolder
+         *          The service holder which hold the service
+         * @return  true means the service was initialized already, false means the service
+         *          is initializing asynchronously
+         */
+        boolean initialize(ServiceHolder svcHolder);
     }
 
     private interface IStateMonitor {
 
         void onInitialized(QualifiedServiceId qsId);
+
+        void onFailed(QualifiedServiceId qsId);
     }
 
+    /**
+     * The state management moves the service holder forward, only one thread changes the state
+     * at a time. A request from other thread during the changing is recorded and the changing
+     * thread goes on again when it finishes current changing, so an asynchronous completion is
+     * never lost. A request from the changing thread itself returns directly as before.
+     */
     private final class StateManagement implements IStateMonitor {
 
         private volatile State _state = State.Unresolved;
 
-        private volatile boolean _changing = false;
+        private Thread _changingThread;
+        private boolean _pending = false;
+        private volatile boolean _initCompleted = false;
+        private volatile Throwable _initFailure;
+        private volatile Throwable _failure;
+        private volatile QualifiedServiceId _failedDependency;
 
         private final Map<QualifiedServiceId, Boolean> _dependencyStatus = new HashMap<>();
         private final List<ServiceHolder> _injectedSvcs = new LinkedList<>();
@@ -213,7 +407,7 @@ class ServiceHolder implements IServiceReference {
 
         public void onInitialized(final QualifiedServiceId qsId) {
             if (this._dependencyStatus.put(qsId, true) == null) {
-                if (this._dependencyStatus.remove(new QualifiedServiceId(qsId.getId(), QualifiedServiceId.FROM_ANY)) == null) {
+                if (this._dependencyStatus.remove(qsId.getAnyLocation()) == null) {
                     throw new InvalidArgumentException("The service {} does not depends on {}",
                             ServiceHolder.this._qualifiedSvcId, qsId);
                 }
@@ -226,12 +420,46 @@ class ServiceHolder implements IServiceReference {
             }
         }
 
+        public void onFailed(final QualifiedServiceId qsId) {
+            // The failed dependency is found when resolving
+            goon();
+        }
+
         private boolean goon() {
-            if (this._changing) {
-                return this._state == State.Initialized;
+            synchronized (this) {
+                if (this._changingThread != null) {
+                    if (this._changingThread != Thread.currentThread()) {
+                        this._pending = true;
+                    }
+                    return this._state == State.Initialized;
+                }
+                this._changingThread = Thread.currentThread();
+            }
+            boolean finished = false;
+            try {
+                while (true) {
+                    step();
+                    synchronized (this) {
+                        if (! this._pending) {
+                            this._changingThread = null;
+                            finished = true;
+                            return this._state == State.Initialized;
+                        }
+                        this._pending = false;
+                    }
+                }
+            } finally {
+                if (! finished) {
+                    synchronized (this) {
+                        this._changingThread = null;
+                        this._pending = false;
+                    }
+                }
             }
-            this._changing = true;
-            boolean successful = false;
+        }
+
+        private void step() {
+            boolean successful;
             switch (this._state) {
                 case Unresolved:
                     successful = tryResolve();
@@ -245,30 +473,109 @@ class ServiceHolder implements IServiceReference {
                 case Satisfied:
                     successful = tryInit();
                     break;
+                case Initializing:
+                    successful = checkInitCompleted();
+                    break;
                 case Initialized:
                     // do nothing
                     successful = true;
                     break;
+                case Failed:
+                    // The dependents were notified when it was failed
+                    successful = false;
+                    break;
                 default:
                     throw new KernelException("Unsupported state {}", this._state);
             }
-            if (! successful) {
-                this._changing = false;
+            if (successful) {
+                notifyMonitors(false);
+            }
+        }
+
+        /**
+         * Record the completion of the initialization which is done in other thread or later,
+         * the state is moved by the changing thread
+         */
+        private void initCompleted(final Throwable failure) {
+            ArgumentChecker.equals(this._state, State.Initializing, "ServiceHolder.state");
+            if (failure != null) {
+                this._initFailure = failure;
+            } else {
+                this._initCompleted = true;
+            }
+            goon();
+        }
+
+        /**
+         * Move the Initializing state forward if the initialization was completed
+         *
+         * @return  true means the service is initialized
+         */
+        private boolean checkInitCompleted() {
+            if (this._initFailure != null) {
+                fail(this._initFailure, null);
                 return false;
             }
+            if (this._initCompleted) {
+                changeState(State.Initialized);
+                return true;
+            }
+            // wait for the initializer
+            return false;
+        }
+
+        private void fail(final Throwable failure, final QualifiedServiceId failedDependency) {
+            this._failure = failure;
+            this._failedDependency = failedDependency;
+            changeState(State.Failed);
+            notifyMonitors(true);
+        }
+
+        private void changeState(final State state) {
+            this._state = state;
+            if (ServiceHolder.this._profiler != null) {
+                ServiceHolder.this._profiler.transit(ServiceHolder.this._qualifiedSvcId, state.name());
+            }
+        }
+
+        private long startPhase() {
+            return ServiceHolder.this._profiler == null ? 0 : System.nanoTime();
+        }
+
+        private void endPhase(
+                final String phase,
+                final long startTime,
+                final String detail
+        ) {
+            if (ServiceHolder.this._profiler != null) {
+                ServiceHolder.this._profiler.record(ServiceHolder.this._qualifiedSvcId, phase, startTime, detail);
+            }
+        }
 
+        private void notifyMonitors(final boolean failed) {
             // Notify upstream services
-            Observable.from(ServiceHolder.this._stateMonitors)
-                    .subscribe(monitor -> monitor.onInitialized(ServiceHolder.this._qualifiedSvcId));
+            List<IStateMonitor> monitors = new ArrayList<>(ServiceHolder.this._stateMonitors);
             ServiceHolder.this._stateMonitors.clear();
-
-            this._changing = false;
-            return this._state == State.Initialized;
+            QualifiedServiceId qsId = ServiceHolder.this._qualifiedSvcId;
+            if (failed) {
+                monitors.forEach(monitor -> deliver(() -> monitor.onFailed(qsId)));
+            } else {
+                monitors.forEach(monitor -> deliver(() -> monitor.onInitialized(qsId)));
+            }
         }
 
         private boolean tryResolve() {
             ArgumentChecker.equals(this._state, State.Unresolved, "ServiceHolder.state");
 
+            // The service can't be initialized if any dependency was failed
+            ServiceHolder failedSvc = Observable.from(ServiceHolder.this._dependencies.values())
+                    .filter(dependency -> dependency != null)
+                    .filter(ServiceHolder::isFailed)
+                    .toBlocking().firstOrDefault(null);
+            if (failedSvc != null) {
+                fail(failedSvc._stateManagement._failure, failedSvc._qualifiedSvcId);
+                return false;
+            }
             // Check dependencies is set or not
             QualifiedServiceId unsetSvc = Observable.from(ServiceHolder.this._dependencies.entries())
                     .filter(entry -> entry.getValue() == null)
@@ -288,13 +595,14 @@ class ServiceHolder implements IServiceReference {
                 return false;
             }
 
-            this._state = State.Resolved;
+            changeState(State.Resolved);
             return tryInject();
         }
 
         private boolean tryInject() {
             ArgumentChecker.equals(this._state, State.Resolved, "ServiceHolder.state");
 
+            long injectStart = startPhase();
             if (ServiceHolder.this._dependencies.size() > 0) {
                 if (ServiceHolder.this._svc instanceof IInjectable) {
                     Observable.from(ServiceHolder.this._dependencies.values())
@@ -307,7 +615,13 @@ class ServiceHolder implements IServiceReference {
                                 Object injectedSvc = dependency.getService();
                                 if (injectedSvc instanceof IServiceFactory) {
                                     // Create service from service factory
-                                    injectedSvc = ((IServiceFactory) injectedSvc).createService(ServiceHolder.this._svc);
+                                    long createStart = startPhase();
+                                    if (dependency._scopedFactory != null) {
+                                        injectedSvc = dependency._scopedFactory.createService(ServiceHolder.this._svc);
+                                    } else {
+                                        injectedSvc = ((IServiceFactory) injectedSvc).createService(ServiceHolder.this._svc);
+                                    }
+                                    endPhase(StartupProfiler.PHASE_CREATE_SERVICE, createStart, dependency.getId());
                                 }
                                 ((IInjectable) ServiceHolder.this._svc).injectObject(new Injection(dependency.getId(), injectedSvc));
                                 this._injectedSvcs.add(dependency);
@@ -319,7 +633,8 @@ class ServiceHolder implements IServiceReference {
                 }
             }
 
-            this._state = State.Injected;
+            endPhase(StartupProfiler.PHASE_INJECT, injectStart, null);
+            changeState(State.Injected);
             this._injectedSvcs.clear();
             return trySatisfy();
         }
@@ -327,23 +642,71 @@ class ServiceHolder implements IServiceReference {
         private boolean trySatisfy() {
             ArgumentChecker.equals(this._state, State.Injected, "ServiceHolder.state");
 
-            if (! ServiceHolder.this._satisfyHook.isSatisfied(ServiceHolder.this)) {
+            long satisfyStart = startPhase();
+            boolean satisfied = ServiceHolder.this._satisfyHook.isSatisfied(ServiceHolder.this);
+            endPhase(StartupProfiler.PHASE_SATISFY, satisfyStart, null);
+            if (! satisfied) {
                 return false;
             }
 
-            this._state = State.Satisfied;
+            changeState(State.Satisfied);
             return tryInit();
         }
 
         private boolean tryInit() {
             ArgumentChecker.equals(this._state, State.Satisfied, "ServiceHolder.state");
 
-            if (ServiceHolder.this._svc instanceof IInitial) {
-                ((IInitial) ServiceHolder.this._svc).init();
+            boolean isAsync = ServiceHolder.this._svc instanceof IAsyncInitial;
+            if (isAsync || ServiceHolder.this._svc instanceof IInitial) {
+                if (ServiceHolder.this._initializer != null) {
+                    // The initializer tracks the asynchronous initialization until it is completed
+                    changeState(State.Initializing);
+                    if (! ServiceHolder.this._initializer.initialize(ServiceHolder.this)) {
+                        return checkInitCompleted();
+                    }
+                } else if (isAsync) {
+                    if (! tryInitAsync()) {
+                        return false;
+                    }
+                } else {
+                    long initStart = startPhase();
+                    ((IInitial) ServiceHolder.this._svc).init();
+                    endPhase(StartupProfiler.PHASE_INIT, initStart, null);
+                }
             }
 
-            this._state = State.Initialized;
+            changeState(State.Initialized);
             return true;
         }
+
+        /**
+         * Start asynchronous initialization, the service stays in Initializing state
+         * and its dependents are parked until the returned stage is completed
+         *
+         * @return  true means the stage was completed already
+         */
+        private boolean tryInitAsync() {
+            changeState(State.Initializing);
+            long initStart = startPhase();
+            CompletionStage<?> stage = ((IAsyncInitial) ServiceHolder.this._svc).initAsync();
+            if (stage == null) {
+                throw new KernelException("The service {} returned null initialization stage",
+                        ServiceHolder.this._qualifiedSvcId);
+            }
+            stage.whenComplete((result, failure) -> {
+                endPhase(StartupProfiler.PHASE_INIT, initStart, null);
+                if (ServiceHolder.this._lock == null) {
+                    initCompleted(failure);
+                } else {
+                    Guarder.by(ServiceHolder.this._lock).run(() -> initCompleted(failure));
+                }
+            });
+            // The stage which was completed in current thread is not moved by the completion
+            if (this._initFailure != null) {
+                fail(this._initFailure, null);
+                return false;
+            }
+            return this._initCompleted;
+        }
     }
 }
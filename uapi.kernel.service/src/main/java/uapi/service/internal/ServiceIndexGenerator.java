@@ -0,0 +1,235 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.service.internal;
+
+import freemarker.template.Template;
+import uapi.KernelException;
+import uapi.annotation.ClassMeta;
+import uapi.annotation.IBuilderContext;
+import uapi.helper.ArgumentChecker;
+import uapi.helper.StringHelper;
+import uapi.service.IServiceIndex;
+import uapi.service.SetterMeta;
+
+import javax.lang.model.element.Element;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.Writer;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The generator collects all services which are handled in all rounds and generates
+ * a service index for them when no more class is generated.
+ * The index class is named by the hash of the service class names, so the indexes of
+ * different modules never collide even if their services share a package.
+ */
+class ServiceIndexGenerator {
+
+    private static final String TEMPLATE_SERVICE_INDEX  = "template/service_index.ftl";
+    private static final String INDEX_CLASS_NAME        = "ServiceIndex_{}_Generated";
+    private static final String PATH_SERVICE_INDEX      =
+            "META-INF/services/" + IServiceIndex.class.getCanonicalName();
+
+    /**
+     * Generated class name -> service ids
+     */
+    private final Map<String, List<String>> _svcIds = new HashMap<>();
+    /**
+     * Generated class name -> class builder, the setters of the builder present dependencies
+     */
+    private final Map<String, ClassMeta.Builder> _clsBuilders = new HashMap<>();
+
+    void addServiceIds(
+            final ClassMeta.Builder classBuilder,
+            final String... serviceIds
+    ) {
+        ArgumentChecker.notNull(classBuilder, "classBuilder");
+        String clsName = StringHelper.makeString("{}.{}",
+                classBuilder.getPackageName(), classBuilder.getGeneratedClassName());
+        this._clsBuilders.put(clsName, classBuilder);
+        List<String> ids = this._svcIds.computeIfAbsent(clsName, key -> new ArrayList<>());
+        Collections.addAll(ids, serviceIds);
+    }
+
+    void generate(
+            final IBuilderContext builderContext
+    ) throws KernelException {
+        ArgumentChecker.notNull(builderContext, "builderContext");
+        if (this._clsBuilders.size() == 0) {
+            return;
+        }
+        Map<String, Set<String>> dependencies = resolveDependencies();
+        List<String> services = sortByDependency(dependencies);
+        String pkgName = getIndexPackage(services);
+        String clsName = StringHelper.makeString(INDEX_CLASS_NAME,
+                Integer.toHexString(String.join(",", dependencies.keySet()).hashCode()));
+        Map<String, Object> model = new HashMap<>();
+        model.put("packageName", pkgName);
+        model.put("className", clsName);
+        model.put("services", services);
+        model.put("dependencies", indexDependencies(services, dependencies));
+
+        Template temp = builderContext.loadTemplate(TEMPLATE_SERVICE_INDEX);
+        String indexClsName = pkgName + "." + clsName;
+        try {
+            // The index aggregates all services, so all of them are its originating elements
+            Element[] originatingElements = this._clsBuilders.values().stream()
+                    .map(ClassMeta.Builder::getOriginatingElement)
+                    .filter(Objects::nonNull)
+                    .toArray(Element[]::new);
+            JavaFileObject srcFile = builderContext.getFiler().createSourceFile(indexClsName, originatingElements);
+            try (Writer srcWriter = srcFile.openWriter()) {
+                temp.process(model, srcWriter);
+            }
+            FileObject cfgFile = builderContext.getFiler().createResource(
+                    StandardLocation.CLASS_OUTPUT, StringHelper.EMPTY, PATH_SERVICE_INDEX, originatingElements);
+            try (Writer cfgWriter = cfgFile.openWriter()) {
+                cfgWriter.write(indexClsName);
+                cfgWriter.write("\n");
+            }
+        } catch (Exception ex) {
+            throw new KernelException(ex);
+        }
+        this._svcIds.clear();
+        this._clsBuilders.clear();
+    }
+
+    /**
+     * Resolve the dependencies between the collected services by their inject ids
+     *
+     * @return  The service class name -> the class names of services which it depends on,
+     *          the services are in name order
+     */
+    private Map<String, Set<String>> resolveDependencies() {
+        Map<String, String> idToCls = new HashMap<>();
+        this._svcIds.forEach((clsName, ids) -> ids.forEach(id -> idToCls.put(id, clsName)));
+
+        Map<String, Set<String>> dependencies = new TreeMap<>();
+        this._clsBuilders.forEach((clsName, clsBuilder) -> {
+            Set<String> dependClsNames = clsBuilder.findSetterBuilders().stream()
+                    .map(setterBuilder -> idToCls.get(((SetterMeta.Builder) setterBuilder).getInjectId()))
+                    .filter(dependClsName -> dependClsName != null && ! dependClsName.equals(clsName))
+                    .collect(Collectors.toCollection(TreeSet::new));
+            dependencies.put(clsName, dependClsNames);
+        });
+        return dependencies;
+    }
+
+    /**
+     * Convert the dependencies into the indexes of the sorted services
+     *
+     * @param   services
+     *          The sorted service class names
+     * @param   dependencies
+     *          The dependencies of each service
+     * @return  The indexes of the dependencies of each service by the sorted order
+     */
+    private List<List<Integer>> indexDependencies(
+            final List<String> services,
+            final Map<String, Set<String>> dependencies
+    ) {
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < services.size(); i++) {
+            indexes.put(services.get(i), i);
+        }
+        return services.stream()
+                .map(clsName -> dependencies.get(clsName).stream()
+                        .map(indexes::get)
+                        .collect(Collectors.toList()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Sort services to make sure the service is placed after services which it depends on,
+     * the services which depend on each other are kept in name order
+     *
+     * @param   dependencies
+     *          The dependencies of each service
+     * @return  The sorted service class names
+     */
+    private List<String> sortByDependency(final Map<String, Set<String>> dependencies) {
+        // Sort by Kahn's algorithm, each wave contains the services whose dependencies are all emitted
+        Map<String, List<String>> dependents = new HashMap<>();
+        Map<String, Integer> unresolvedCounts = new HashMap<>();
+        List<String> wave = new ArrayList<>();
+        dependencies.forEach((clsName, dependClsNames) -> {
+            unresolvedCounts.put(clsName, dependClsNames.size());
+            dependClsNames.forEach(dependClsName ->
+                    dependents.computeIfAbsent(dependClsName, key -> new ArrayList<>()).add(clsName));
+            if (dependClsNames.isEmpty()) {
+                wave.add(clsName);
+            }
+        });
+
+        List<String> sorted = new ArrayList<>(dependencies.size());
+        Set<String> emitted = new HashSet<>();
+        while (sorted.size() < dependencies.size()) {
+            if (wave.isEmpty()) {
+                // Cycle dependencies, the registry will handle it at runtime
+                dependencies.keySet().stream()
+                        .filter(clsName -> ! emitted.contains(clsName))
+                        .forEach(wave::add);
+            }
+            sorted.addAll(wave);
+            emitted.addAll(wave);
+            Set<String> nextWave = new TreeSet<>();
+            for (String clsName : wave) {
+                for (String dependent : dependents.getOrDefault(clsName, Collections.emptyList())) {
+                    if (! emitted.contains(dependent) && unresolvedCounts.merge(dependent, -1, Integer::sum) == 0) {
+                        nextWave.add(dependent);
+                    }
+                }
+            }
+            wave.clear();
+            wave.addAll(nextWave);
+        }
+        return sorted;
+    }
+
+    /**
+     * The index is placed in the common package of the services, or the package of the first
+     * service if they have no common package.
+     * A service in default package can't be referenced by the index in a named package, and
+     * the index in default package collides with the indexes of other modules, so it is rejected.
+     */
+    private String getIndexPackage(List<String> classNames) {
+        classNames.stream().filter(clsName -> clsName.indexOf('.') < 0).findFirst().ifPresent(clsName -> {
+            throw new KernelException("The service {} in default package can't be indexed", clsName);
+        });
+        String pkgName = getCommonPackage(classNames);
+        if (pkgName.length() > 0) {
+            return pkgName;
+        }
+        String first = classNames.get(0);
+        return first.substring(0, first.lastIndexOf('.'));
+    }
+
+    private String getCommonPackage(List<String> classNames) {
+        String common = null;
+        for (String clsName : classNames) {
+            int idx = clsName.lastIndexOf('.');
+            String pkgName = idx < 0 ? StringHelper.EMPTY : clsName.substring(0, idx);
+            if (common == null) {
+                common = pkgName;
+                continue;
+            }
+            while (! (pkgName.equals(common) || pkgName.startsWith(common + "."))) {
+                idx = common.lastIndexOf('.');
+                common = idx < 0 ? StringHelper.EMPTY : common.substring(0, idx);
+                if (common.length() == 0) {
+                    break;
+                }
+            }
+        }
+        return common == null ? StringHelper.EMPTY : common;
+    }
+}
@@ -0,0 +1,284 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.service.internal;
+
+import uapi.KernelException;
+import uapi.helper.ArgumentChecker;
+import uapi.service.CriticalPath;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * The StartupProfiler records state transitions of service holders and the time spent on
+ * injection, satisfy checking and initialization, the records can be written as a Chrome
+ * trace event file which can be opened by chrome://tracing
+ */
+class StartupProfiler {
+
+    static final String PHASE_INJECT            = "inject";
+    static final String PHASE_CREATE_SERVICE    = "createService";
+    static final String PHASE_SATISFY           = "isSatisfied";
+    static final String PHASE_INIT              = "init";
+
+    private final long _baseTime = System.nanoTime();
+    private final Queue<Event> _events = new ConcurrentLinkedQueue<>();
+    /**
+     * Qualified service id -> total nanoseconds spent on the service
+     */
+    private final Map<QualifiedServiceId, Long> _costs = new ConcurrentHashMap<>();
+
+    /**
+     * Record a state transition
+     *
+     * @param   qsId
+     *          The service which state is changed
+     * @param   state
+     *          The new state
+     */
+    void transit(
+            final QualifiedServiceId qsId,
+            final String state
+    ) {
+        this._events.add(new Event(qsId, state, System.nanoTime(), -1, null));
+    }
+
+    /**
+     * Record a phase which is started from specific time and end at now
+     *
+     * @param   qsId
+     *          The service which the phase belongs to
+     * @param   phase
+     *          The phase name
+     * @param   startTime
+     *          The start time of the phase which is returned by System.nanoTime
+     * @param   detail
+     *          The phase detail or null
+     */
+    void record(
+            final QualifiedServiceId qsId,
+            final String phase,
+            final long startTime,
+            final String detail
+    ) {
+        long duration = System.nanoTime() - startTime;
+        this._events.add(new Event(qsId, phase, startTime, duration, detail));
+        if (! PHASE_CREATE_SERVICE.equals(phase)) {
+            // The createService time is counted in the inject phase already
+            this._costs.merge(qsId, duration, Long::sum);
+        }
+    }
+
+    long getCost(final QualifiedServiceId qsId) {
+        Long cost = this._costs.get(qsId);
+        return cost == null ? 0 : cost;
+    }
+
+    /**
+     * Write all records into specific file with Chrome trace event format
+     *
+     * @param   file
+     *          The file path
+     * @param   criticalPath
+     *          The critical path of the startup
+     */
+    void write(
+            final String file,
+            final CriticalPath criticalPath
+    ) {
+        ArgumentChecker.notEmpty(file, "file");
+        ArgumentChecker.notNull(criticalPath, "criticalPath");
+        Map<String, Long> threadIds = new LinkedHashMap<>();
+        try (Writer writer = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)) {
+            writer.write("{\"traceEvents\":[\n");
+            boolean first = true;
+            for (Event event : this._events) {
+                Long tid = threadIds.computeIfAbsent(event._thread, thread -> (long) threadIds.size() + 1);
+                if (! first) {
+                    writer.write(",\n");
+                }
+                first = false;
+                writer.write("{\"name\":");
+                writeString(writer, event._name);
+                writer.write(",\"cat\":");
+                writeString(writer, event._qsId.toString());
+                if (event._duration < 0) {
+                    writer.write(",\"ph\":\"i\",\"s\":\"t\"");
+                } else {
+                    writer.write(",\"ph\":\"X\",\"dur\":");
+                    writer.write(Long.toString(TimeUnit.NANOSECONDS.toMicros(event._duration)));
+                }
+                writer.write(",\"ts\":");
+                writer.write(Long.toString(TimeUnit.NANOSECONDS.toMicros(event._time - this._baseTime)));
+                writer.write(",\"pid\":1,\"tid\":");
+                writer.write(Long.toString(tid));
+                writer.write(",\"args\":{\"service\":");
+                writeString(writer, event._qsId.toString());
+                if (event._detail != null) {
+                    writer.write(",\"detail\":");
+                    writeString(writer, event._detail);
+                }
+                writer.write("}}");
+            }
+            for (Map.Entry<String, Long> threadId : threadIds.entrySet()) {
+                writer.write(first ? "" : ",\n");
+                first = false;
+                writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":");
+                writer.write(Long.toString(threadId.getValue()));
+                writer.write(",\"args\":{\"name\":");
+                writeString(writer, threadId.getKey());
+                writer.write("}}");
+            }
+            writer.write("\n],\"otherData\":{\"criticalPathMs\":");
+            writer.write(Long.toString(criticalPath.getElapsedTime()));
+            writer.write(",\"criticalPath\":");
+            writeString(writer, String.join(" -> ", criticalPath.getServiceIds()));
+            writer.write("}}\n");
+        } catch (IOException ex) {
+            throw new KernelException(ex, "Write startup profile to {} failed", file);
+        }
+    }
+
+    private static void writeString(
+            final Writer writer,
+            final String value
+    ) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+    /**
+     * Calculate the critical path from specific service holders, the cost of a service is
+     * its own cost plus the max cost of its dependencies.
+     *
+     * @param   svcHolders
+     *          All service holders
+     * @param   costOf
+     *          The function to get own cost of a service holder in nanoseconds
+     * @return  The critical path
+     */
+    static CriticalPath calculateCriticalPath(
+            final Collection<ServiceHolder> svcHolders,
+            final ToLongFunction<ServiceHolder> costOf
+    ) {
+        ArgumentChecker.notNull(svcHolders, "svcHolders");
+        ArgumentChecker.notNull(costOf, "costOf");
+        Map<ServiceHolder, Long> costs = new HashMap<>();
+        Map<ServiceHolder, ServiceHolder> predecessors = new HashMap<>();
+        ServiceHolder tail = null;
+        long maxCost = -1;
+        for (ServiceHolder svcHolder : svcHolders) {
+            calculateCost(svcHolder, costOf, costs, predecessors);
+            long cost = costs.get(svcHolder);
+            if (cost > maxCost) {
+                maxCost = cost;
+                tail = svcHolder;
+            }
+        }
+        LinkedList<String> path = new LinkedList<>();
+        for (ServiceHolder svcHolder = tail; svcHolder != null; svcHolder = predecessors.get(svcHolder)) {
+            path.addFirst(svcHolder.getQualifiedId().toString());
+        }
+        return new CriticalPath(path, TimeUnit.NANOSECONDS.toMillis(Math.max(maxCost, 0)));
+    }
+
+    /**
+     * Calculate the cost of specific service holder and all its dependencies, the dependency
+     * graph is walked in post-order by an explicit stack, so a long dependency chain does not
+     * overflow the thread stack.
+     * The dependency which is being calculated means the dependencies are cycled, it is ignored.
+     */
+    private static void calculateCost(
+            final ServiceHolder svcHolder,
+            final ToLongFunction<ServiceHolder> costOf,
+            final Map<ServiceHolder, Long> costs,
+            final Map<ServiceHolder, ServiceHolder> predecessors
+    ) {
+        Set<ServiceHolder> expanded = new HashSet<>();
+        Deque<ServiceHolder> stack = new ArrayDeque<>();
+        stack.push(svcHolder);
+        while (! stack.isEmpty()) {
+            ServiceHolder current = stack.peek();
+            if (costs.containsKey(current)) {
+                stack.pop();
+                continue;
+            }
+            if (expanded.add(current)) {
+                // Calculate the dependencies first, the current one is calculated when it is peeked again
+                for (ServiceHolder dependency : current.getDependencies()) {
+                    if (! costs.containsKey(dependency) && ! expanded.contains(dependency)) {
+                        stack.push(dependency);
+                    }
+                }
+                continue;
+            }
+            stack.pop();
+            long maxDependencyCost = -1;
+            for (ServiceHolder dependency : current.getDependencies()) {
+                Long dependencyCost = costs.get(dependency);
+                if (dependencyCost != null && dependencyCost > maxDependencyCost) {
+                    maxDependencyCost = dependencyCost;
+                    predecessors.put(current, dependency);
+                }
+            }
+            costs.put(current, costOf.applyAsLong(current) + Math.max(maxDependencyCost, 0));
+        }
+    }
+
+    private static final class Event {
+
+        private final QualifiedServiceId _qsId;
+        private final String _name;
+        private final long _time;
+        private final long _duration;
+        private final String _detail;
+        private final String _thread;
+
+        private Event(
+                final QualifiedServiceId qsId,
+                final String name,
+                final long time,
+                final long duration,
+                final String detail
+        ) {
+            this._qsId = qsId;
+            this._name = name;
+            this._time = time;
+            this._duration = duration;
+            this._detail = detail;
+            this._thread = Thread.currentThread().getName();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+<#if packageName?has_content>
+package ${packageName};
+</#if>
+
+/**
+ * The service index is generated at compile time, do not modify it
+ */
+public final class ${className} implements uapi.service.IServiceIndex {
+
+    private static final String[] SERVICE_TYPES = new String[] {
+<#list services as service>
+            "${service}"<#sep>,</#sep>
+</#list>
+    };
+
+    @Override
+    public String[] getServiceTypes() {
+        return SERVICE_TYPES;
+    }
+
+    private static final int[][] DEPENDENCIES = new int[][] {
+<#list dependencies as dependency>
+            {<#list dependency as idx> ${idx?c}<#sep>,</#sep></#list> }<#sep>,</#sep>
+</#list>
+    };
+
+    @Override
+    public int[][] getDependencies() {
+        return DEPENDENCIES;
+    }
+
+    @Override
+    public uapi.service.IService[] createServices() {
+        return new uapi.service.IService[] {
+<#list services as service>
+                new ${service}()<#sep>,</#sep>
+</#list>
+        };
+    }
+}
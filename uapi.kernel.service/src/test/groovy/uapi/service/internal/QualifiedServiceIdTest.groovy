@@ -10,6 +10,7 @@
 package uapi.service.internal
 
 import spock.lang.Specification
+import uapi.InvalidArgumentException
 
 /**
  * Test case for QualifiedServiceId
@@ -26,4 +27,27 @@ class QualifiedServiceIdTest extends Specification {
         id1         | id2           | result
         'a@Local'   | 'b@Local'     | false
     }
+
+    def 'Test qualified service id is interned'() {
+        when:
+        def qsId = QualifiedServiceId.splitTo('svc@Local')
+
+        then:
+        qsId.is(QualifiedServiceId.of('svc', QualifiedServiceId.FROM_LOCAL))
+        qsId.anyLocation.is(QualifiedServiceId.splitTo('svc@Any'))
+        qsId == new QualifiedServiceId('svc', QualifiedServiceId.FROM_LOCAL)
+        qsId.hashCode() == new QualifiedServiceId('svc', QualifiedServiceId.FROM_LOCAL).hashCode()
+        qsId.toString() == 'svc@Local'
+    }
+
+    def 'Test split invalid combined string'() {
+        when:
+        QualifiedServiceId.splitTo(combined)
+
+        then:
+        thrown(InvalidArgumentException)
+
+        where:
+        combined << ['svc', 'svc@', 'svc@Local@Any']
+    }
 }
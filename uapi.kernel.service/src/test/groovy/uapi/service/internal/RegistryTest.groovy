@@ -10,12 +10,29 @@
 package uapi.service.internal
 
 import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+import uapi.KernelException
+import uapi.service.IAsyncInitial
+import uapi.service.IInitial
 import uapi.service.IInjectable
+import uapi.service.ILazy
 import uapi.service.IRegistry
+import uapi.service.IRegistryStats
 import uapi.service.ISatisfyHook
 import uapi.service.IService
+import uapi.service.IScoped
+import uapi.service.IServiceFactory
 import uapi.service.IServiceLoader
 import uapi.service.Injection
+import uapi.service.Scope
+
+import java.nio.file.Files
+import java.util.concurrent.Callable
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionStage
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Supplier
 
 /**
  * Test case for Registry
@@ -154,7 +171,6 @@ class RegistryTest extends Specification {
         }
         def svcLoader = Mock(IServiceLoader) {
             getName() >> "Test"
-            load(dependSvcId) >> dependSvc
         }
 
         when:
@@ -162,11 +178,603 @@ class RegistryTest extends Specification {
         registry.registerServiceLoader(svcLoader)
 
         then:
-        1 * svcLoader.load(dependSvcId)
+        1 * svcLoader.loadAll([dependSvcId]) >> [(dependSvcId): dependSvc]
 
         where:
         dependSvcId     | dependQSvcId  | dependSvc
         'd1'            | 'd1@Test'     | 'abc'
         'd2'            | 'd2@Any'      | 'abc'
     }
+
+    static class ChainedService implements IService, IInjectable {
+
+        String id
+        String dependentId
+        Object injected
+
+        String[] getIds() { [id] as String[] }
+
+        String[] getDependentIds() { dependentId == null ? [] as String[] : [dependentId] as String[] }
+
+        void injectObject(Injection injection) { injected = injection.object }
+
+        boolean isOptional(String id) { false }
+    }
+
+    def 'Register a long dependency chain in reverse order'() {
+        given:
+        def svcs = (0..<count).collect { idx ->
+            new ChainedService(id: "svc${idx}", dependentId: idx == 0 ? null : "svc${idx - 1}@${QualifiedServiceId.FROM_LOCAL}")
+        }
+
+        when:
+        svcs.reverse().each { registry.register(it) }
+
+        then:
+        registry.getCount() == count
+        registry.findService("svc${count - 1}") == svcs[count - 1]
+        (1..<count).every { svcs[it].injected == svcs[it - 1] }
+
+        where:
+        count << [2000]
+    }
+
+    def 'Register a long dependency chain in forward order'() {
+        given:
+        def svcs = (0..<count).collect { idx ->
+            new ChainedService(id: "svc${idx}", dependentId: idx == 0 ? null : "svc${idx - 1}@${QualifiedServiceId.FROM_LOCAL}")
+        }
+
+        when:
+        svcs.each { registry.register(it) }
+
+        then:
+        registry.getCount() == count
+        registry.findService("svc${count - 1}") == svcs[count - 1]
+        (1..<count).every { svcs[it].injected == svcs[it - 1] }
+
+        where:
+        count << [2000]
+    }
+
+    def 'Register service after it was found'() {
+        given:
+        def svc1 = new ChainedService(id: 'svc')
+        def svc2 = new ChainedService(id: 'svc')
+        registry.register(svc1)
+
+        expect:
+        registry.findServices('svc') == [svc1]
+        registry.findService('svc', QualifiedServiceId.FROM_LOCAL) == svc1
+
+        when:
+        registry.register(svc2)
+
+        then:
+        registry.findServices('svc') == [svc1, svc2]
+    }
+
+    def 'Find service concurrently'() {
+        given:
+        def svc = new ChainedService(id: 'svc')
+        registry.register(svc)
+        def pool = Executors.newFixedThreadPool(threadCount)
+
+        when:
+        def futures = (0..<threadCount).collect {
+            pool.submit({ (0..<1000).every { registry.findService('svc') == svc } } as Callable)
+        }
+
+        then:
+        futures.every { it.get() }
+
+        cleanup:
+        pool.shutdown()
+
+        where:
+        threadCount << [32]
+    }
+
+    static class InitialService extends ChainedService implements IInitial {
+
+        long initTime
+        volatile long initStart
+        volatile long initEnd
+        volatile Object injectedWhenInit
+
+        void init() {
+            injectedWhenInit = injected
+            initStart = System.currentTimeMillis()
+            Thread.sleep(initTime)
+            initEnd = System.currentTimeMillis()
+        }
+    }
+
+    def 'Start registry in parallel'() {
+        given:
+        def a = new InitialService(id: 'a', initTime: 100)
+        def b = new InitialService(id: 'b', initTime: 100, dependentId: "a@${QualifiedServiceId.FROM_LOCAL}")
+        def c = new InitialService(id: 'c', initTime: 100)
+        def d = new InitialService(id: 'd', initTime: 100)
+        registry.register(b, a, c, d)
+
+        when:
+        def criticalPath = registry.start(4)
+
+        then:
+        [a, b, c, d].every { it.initEnd > 0 }
+        b.injectedWhenInit == a
+        b.initStart >= a.initEnd
+        c.initStart < a.initEnd
+        d.initStart < a.initEnd
+        criticalPath.serviceIds == ["a@${QualifiedServiceId.FROM_LOCAL}", "b@${QualifiedServiceId.FROM_LOCAL}"]*.toString()
+        criticalPath.elapsedTime >= 200
+        registry.findService('b') == b
+    }
+
+    static class LazyService extends InitialService implements ILazy {}
+
+    def 'Lazy service is initialized on demand'() {
+        given:
+        def lazy = new LazyService(id: 'lazy')
+        def lazyDependent = new LazyService(id: 'lazyDependent', dependentId: "lazy@${QualifiedServiceId.FROM_LOCAL}")
+        registry.register(lazy, lazyDependent)
+
+        when:
+        registry.start()
+
+        then:
+        lazy.initEnd == 0
+        lazyDependent.initEnd == 0
+
+        when:
+        def found = registry.findService('lazyDependent')
+
+        then:
+        found == lazyDependent
+        lazyDependent.injectedWhenInit == lazy
+        lazy.initEnd > 0
+        lazyDependent.initEnd > 0
+    }
+
+    def 'Lazy service is initialized when its dependent is initialized'() {
+        given:
+        def lazy = new LazyService(id: 'lazy')
+        def dependent = new InitialService(id: 'dependent', dependentId: "lazy@${QualifiedServiceId.FROM_LOCAL}")
+        def other = new LazyService(id: 'other')
+        registry.register(lazy, dependent, other)
+
+        when:
+        registry.start(parallelism)
+
+        then:
+        lazy.initEnd > 0
+        dependent.injectedWhenInit == lazy
+        other.initEnd == 0
+
+        where:
+        parallelism << [2]
+    }
+
+    def 'Service handle is resolved and invalidated'() {
+        given:
+        def svc1 = new ChainedService(id: 'svc')
+        def svc2 = new ChainedService(id: 'svc2')
+        def handle = registry.getHandle('svc')
+
+        expect:
+        handle.get() == null
+        registry.getHandle('svc').is(handle)
+
+        when:
+        registry.register(svc1)
+
+        then:
+        handle.get() == svc1
+        handle.get() == svc1
+
+        when:
+        registry.register(svc2, 'svc')
+
+        then:
+        handle.toString() == 'ServiceHandle[serviceId=svc, resolved=false]'
+    }
+
+    static class ScopedFactory implements IService, IServiceFactory<Supplier>, IScoped {
+
+        Scope scope
+        AtomicInteger created = new AtomicInteger()
+
+        String[] getIds() { ['scoped'] as String[] }
+
+        Supplier createService(Object serveFor) {
+            created.incrementAndGet()
+            def token = new Object()
+            return { -> token } as Supplier
+        }
+
+        Scope getScope() { scope }
+
+        int getMaxIdle() { 2 }
+
+        Class<?> getServiceType() { Supplier }
+    }
+
+    def 'Inject scoped service'() {
+        given:
+        def factory = new ScopedFactory(scope: scope)
+        def svc1 = new ChainedService(id: 'svc1', dependentId: "scoped@${QualifiedServiceId.FROM_LOCAL}")
+        def svc2 = new ChainedService(id: 'svc2', dependentId: "scoped@${QualifiedServiceId.FROM_LOCAL}")
+        registry.register(factory, svc1, svc2)
+
+        when:
+        registry.findService('svc1')
+        registry.findService('svc2')
+        def token1 = svc1.injected.get()
+        def token2 = svc1.injected.get()
+        def otherThreadToken = Executors.newSingleThreadExecutor().submit({ svc1.injected.get() } as Callable).get()
+
+        then:
+        svc1.injected.is(svc2.injected) == shared
+        token1.is(token2)
+        token1.is(otherThreadToken) == sameInThreads
+        factory.created.get() == created
+
+        where:
+        scope           | shared    | sameInThreads | created
+        Scope.Singleton | true      | true          | 1
+        Scope.Prototype | false     | true          | 2
+        Scope.Thread    | false     | false         | 2
+        Scope.Pooled    | false     | true          | 1
+    }
+
+    static class AsyncService extends ChainedService implements IAsyncInitial {
+
+        CompletableFuture<Void> future = new CompletableFuture<>()
+
+        CompletionStage<?> initAsync() { future }
+    }
+
+    def 'Dependent service is initialized when async initialization is completed'() {
+        given:
+        def a = new AsyncService(id: 'a')
+        def b = new InitialService(id: 'b', dependentId: "a@${QualifiedServiceId.FROM_LOCAL}")
+        registry.register(a, b)
+
+        when:
+        registry.start()
+
+        then:
+        b.initEnd == 0
+        registry.findService('b') == null
+
+        when:
+        Executors.newSingleThreadExecutor().submit({ a.future.complete(null) } as Callable).get()
+
+        then:
+        b.initEnd > 0
+        b.injectedWhenInit == a
+        registry.findService('b') == b
+    }
+
+    def 'Async initialization failure is reported'() {
+        given:
+        def a = new AsyncService(id: 'a')
+        registry.register(a)
+        registry.start()
+
+        when:
+        a.future.completeExceptionally(new IllegalStateException())
+        registry.findService('a')
+
+        then:
+        def ex = thrown(RuntimeException)
+        ex.message == 'Initialize service a@Local asynchronously failed'
+    }
+
+    def 'Dependent service is failed when async initialization is failed'() {
+        given:
+        def a = new AsyncService(id: 'a')
+        def b = new InitialService(id: 'b', dependentId: "a@${QualifiedServiceId.FROM_LOCAL}")
+        def c = new InitialService(id: 'c', dependentId: "b@${QualifiedServiceId.FROM_LOCAL}")
+        registry.register(a, b, c)
+        registry.start()
+
+        when:
+        Executors.newSingleThreadExecutor().submit({ a.future.completeExceptionally(new IllegalStateException()) } as Callable).get()
+        registry.findService('c')
+
+        then:
+        def ex = thrown(RuntimeException)
+        ex.message == 'Initialize service c@Local failed since its dependency b@Local was failed'
+        ex.cause instanceof IllegalStateException
+        b.initEnd == 0
+        c.initEnd == 0
+    }
+
+    static class DelayedAsyncService extends ChainedService implements IAsyncInitial {
+
+        long initTime
+
+        CompletionStage<?> initAsync() {
+            CompletableFuture.runAsync({ Thread.sleep(initTime) } as Runnable)
+        }
+    }
+
+    def 'Start registry in parallel with async service'() {
+        given:
+        def a = new DelayedAsyncService(id: 'a', initTime: 200)
+        def b = new InitialService(id: 'b', initTime: 100, dependentId: "a@${QualifiedServiceId.FROM_LOCAL}")
+        registry.register(b, a)
+
+        when:
+        def criticalPath = registry.start(2)
+
+        then:
+        b.initEnd > 0
+        b.injectedWhenInit == a
+        criticalPath.serviceIds == ["a@${QualifiedServiceId.FROM_LOCAL}", "b@${QualifiedServiceId.FROM_LOCAL}"]*.toString()
+        criticalPath.elapsedTime >= 300
+        registry.findService('b') == b
+    }
+
+    def 'Start registry in parallel fails when services are not initialized in time'() {
+        given:
+        System.setProperty(Registry.PROP_START_TIMEOUT, '100')
+        def registry = new Registry()
+        def a = new AsyncService(id: 'a')
+        registry.register(a)
+
+        when:
+        registry.start(2)
+
+        then:
+        def ex = thrown(KernelException)
+        ex.message == 'The services were not initialized in 100ms - [a@Local]'
+
+        cleanup:
+        System.clearProperty(Registry.PROP_START_TIMEOUT)
+    }
+
+    def 'Restore dependency graph from snapshot'() {
+        given:
+        def file = Files.createTempFile('registry', '.snapshot')
+        Files.delete(file)
+        System.setProperty(Registry.PROP_REGISTRY_SNAPSHOT, file.toString())
+        def createServices = {
+            (0..<count).collect { idx ->
+                new ChainedService(id: "svc${idx}", dependentId: idx == 0 ? null : "svc${idx - 1}@${QualifiedServiceId.FROM_LOCAL}")
+            }
+        }
+
+        when: 'first start writes the snapshot'
+        def svcs1 = createServices()
+        def registry1 = new Registry()
+        registry1.register(svcs1.reverse() as IService[])
+        def snapshot = Files.readAllBytes(file)
+
+        then:
+        snapshot.length > 0
+        registry1.findService("svc${count - 1}") == svcs1[count - 1]
+        (1..<count).every { svcs1[it].injected == svcs1[it - 1] }
+
+        when: 'next start restores from the snapshot'
+        def svcs2 = createServices()
+        def registry2 = new Registry()
+        registry2.register(svcs2.reverse() as IService[])
+
+        then:
+        Files.readAllBytes(file) == snapshot
+        registry2.getCount() == count
+        registry2.findService("svc${count - 1}") == svcs2[count - 1]
+        (1..<count).every { svcs2[it].injected == svcs2[it - 1] }
+
+        when: 'changed services rewrite the snapshot'
+        def svcs3 = createServices()
+        svcs3[1].dependentId = null
+        new Registry().register(svcs3.reverse() as IService[])
+
+        then:
+        Files.readAllBytes(file) != snapshot
+
+        cleanup:
+        System.clearProperty(Registry.PROP_REGISTRY_SNAPSHOT)
+        Files.deleteIfExists(file)
+
+        where:
+        count << [100]
+    }
+
+    def 'Register services in bulk'() {
+        given:
+        def existing = new ChainedService(id: 'e', dependentId: "n1@${QualifiedServiceId.FROM_LOCAL}")
+        def n1 = new ChainedService(id: 'n1')
+        def n2 = new ChainedService(id: 'n2', dependentId: "n1@${QualifiedServiceId.FROM_ANY}")
+        def n3 = new ChainedService(id: 'n3', dependentId: "e@${QualifiedServiceId.FROM_LOCAL}")
+        registry.register(existing)
+
+        when:
+        registry.register(n2, n3, n1)
+
+        then:
+        registry.getCount() == 4
+        registry.findService('n3') == n3
+        registry.findService('n2') == n2
+        existing.injected == n1
+        n2.injected == n1
+        n3.injected == existing
+    }
+
+    def 'Register a long dependency chain in bulk'() {
+        given:
+        def svcs = (0..<count).collect { idx ->
+            new ChainedService(id: "svc${idx}", dependentId: idx == 0 ? null : "svc${idx - 1}@${QualifiedServiceId.FROM_LOCAL}")
+        }
+
+        when:
+        registry.register(svcs as IService[])
+
+        then:
+        registry.getCount() == count
+        registry.findService("svc${count - 1}") == svcs[count - 1]
+        (1..<count).every { svcs[it].injected == svcs[it - 1] }
+
+        where:
+        count << [2000]
+    }
+
+    static class BatchServiceLoader implements IServiceLoader {
+
+        List<Collection<String>> batches = [].asSynchronized()
+        Set<Thread> threads = ([] as Set).asSynchronized()
+
+        String getName() { 'Batch' }
+
+        def <T> T load(String serviceId) {
+            throw new UnsupportedOperationException()
+        }
+
+        Map<String, Object> loadAll(Collection<String> serviceIds) {
+            batches << new ArrayList<>(serviceIds)
+            threads << Thread.currentThread()
+            return serviceIds.collectEntries { [(it): "${it}-loaded".toString()] }
+        }
+    }
+
+    def 'Load external services by one batch'() {
+        given:
+        def svcs = (0..<4).collect { idx -> new ChainedService(id: "svc${idx}", dependentId: "ext${idx}@Batch") }
+        def shared = new ChainedService(id: 'shared', dependentId: 'ext0@Batch')
+        registry.register(svcs as IService[])
+        registry.register(shared)
+        def loader = new BatchServiceLoader()
+
+        when:
+        registry.registerServiceLoader(loader)
+
+        then:
+        loader.batches.size() == 1
+        loader.batches[0].sort() == ['ext0', 'ext1', 'ext2', 'ext3']
+        ! loader.threads.contains(Thread.currentThread())
+        registry.findService('ext1', 'Batch') == 'ext1-loaded'
+        registry.findService('svc2') == svcs[2]
+        svcs[2].injected == 'ext2-loaded'
+        registry.findService('shared') == shared
+        shared.injected == 'ext0-loaded'
+    }
+
+    def 'Register service loader when the registry lock is held'() {
+        given:
+        def svc = new ChainedService(id: 'svc', dependentId: 'ext@Batch')
+        registry.register(svc)
+        def loader = new BatchServiceLoader()
+
+        when:
+        registry._unsatisfiedLock.lock()
+        try {
+            registry.registerServiceLoader(loader)
+        } finally {
+            registry._unsatisfiedLock.unlock()
+        }
+
+        then:
+        new PollingConditions(timeout: 5).eventually {
+            assert registry.findService('svc') == svc
+        }
+        svc.injected == 'ext-loaded'
+        loader.batches == [['ext']]
+    }
+
+    def 'Report loading failure when the registry lock is held'() {
+        given:
+        def svc = new ChainedService(id: 'svc', dependentId: 'ext@Batch')
+        def dependent = new ChainedService(id: 'dependent', dependentId: "svc@${QualifiedServiceId.FROM_LOCAL}")
+        registry.register(svc, dependent)
+        def loader = new BatchServiceLoader() {
+            Map<String, Object> loadAll(Collection<String> serviceIds) {
+                throw new IllegalStateException()
+            }
+        }
+
+        when:
+        registry._unsatisfiedLock.lock()
+        try {
+            registry.registerServiceLoader(loader)
+        } finally {
+            registry._unsatisfiedLock.unlock()
+        }
+        new PollingConditions(timeout: 5).eventually {
+            assert registry._loadFailures.size() == 1
+        }
+        registry.findService('dependent')
+
+        then:
+        def ex = thrown(KernelException)
+        ex.message == 'Initialize service svc@Local failed since loading its dependencies [ext] by Batch was failed'
+        ex.cause instanceof IllegalStateException
+    }
+
+    def 'Collect registry statistics'() {
+        given:
+        def a = new ChainedService(id: 'a')
+        def b = new ChainedService(id: 'b', dependentId: "c@${QualifiedServiceId.FROM_LOCAL}")
+        registry.register(a, b)
+
+        when:
+        registry.findService('a')
+        registry.findService('a')
+        registry.findService('b')
+        registry.findService('a', QualifiedServiceId.FROM_LOCAL)
+        registry.findService('unknown')
+        def stats = registry.getStats()
+
+        then:
+        stats.getLookupCount('a') == 3
+        stats.getLookupCount('b') == 0
+        stats.getLookupCount('unknown') == 0
+        stats.getLookupCounts() == [a: 3L]
+        stats.getHitCount() == 3
+        stats.getMissCount() == 2
+        stats.getMissCount('b') == 1
+        stats.getMissCount('unknown') == 1
+        stats.getMissCounts() == [b: 1L, unknown: 1L]
+        stats.getLockAcquiredCount() > 0
+        stats.getLockHoldTime() > 0
+        stats.getLockWaitTime() >= 0
+        stats.getSatisfyCheckCount() == 1
+        stats.getSatisfyCheckTime() > 0
+        stats.getStateCounts() == [Initialized: 1, Unresolved: 1]
+        registry.getCount() == 2
+        registry.findService(IRegistryStats) == stats
+        stats.getServices('Unresolved') == ["b@${QualifiedServiceId.FROM_LOCAL}".toString()]
+    }
+
+    def 'Count missed lookups by id for limited ids'() {
+        given:
+        def count = RegistryStats.MAX_MISSED_IDS + 10
+
+        when:
+        (0..<count).each { registry.findService("unknown${it}") }
+        registry.findService('unknown0')
+        def stats = registry.getStats()
+
+        then:
+        stats.getMissCount() == count + 1
+        stats.getMissCounts().size() == RegistryStats.MAX_MISSED_IDS
+        stats.getMissCount('unknown0') == 2
+        stats.getMissCount("unknown${count - 1}") == 0
+    }
+
+    def 'Inject registry statistics'() {
+        given:
+        def svc = new ChainedService(id: 'svc', dependentId: "${IRegistryStats.canonicalName}@${QualifiedServiceId.FROM_LOCAL}")
+
+        when:
+        registry.register(svc)
+
+        then:
+        registry.findService('svc') == svc
+        svc.injected == registry.getStats()
+        registry.getCount() == 1
+    }
 }
@@ -9,6 +9,7 @@
 
 package uapi.service.internal
 
+import groovy.transform.CompileStatic
 import spock.lang.Specification
 import uapi.service.IInitial
 import uapi.service.IInjectable
@@ -17,6 +18,8 @@ import uapi.service.ISatisfyHook
 import uapi.service.IService
 import uapi.service.IServiceFactory
 
+import java.lang.management.ManagementFactory
+
 /**
  * Test case for ServiceHolder
  */
@@ -178,4 +181,64 @@ class ServiceHolderTest extends Specification {
         serviceId   | from                          | inited
         "1"         | QualifiedServiceId.FROM_LOCAL | false
     }
+
+    def 'Dependency matching does not allocate'() {
+        given:
+        ServiceHolder holder = new ServiceHolder(
+                QualifiedServiceId.FROM_LOCAL, Mock(IInjectable), 'svc',
+                ['dep1@Local', 'dep2@Any'] as String[], Mock(ISatisfyHook))
+        def dep1 = QualifiedServiceId.of('dep1', QualifiedServiceId.FROM_LOCAL)
+        def dep2 = QualifiedServiceId.of('dep2', 'Remote')
+        // Warm up
+        matchDependencies(holder, dep1, dep2, 10000)
+
+        when:
+        long allocated = matchDependencies(holder, dep1, dep2, 100000)
+
+        then:
+        // The allocation counter itself allocates a few bytes
+        allocated < 10000
+    }
+
+    @CompileStatic
+    private static long matchDependencies(ServiceHolder holder, QualifiedServiceId dep1, QualifiedServiceId dep2, int times) {
+        def mxBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()
+        long threadId = Thread.currentThread().getId()
+        long start = mxBean.getThreadAllocatedBytes(threadId)
+        int matched = 0
+        for (int i = 0; i < times; i++) {
+            if (holder.isDependsOn(dep1) && holder.isDependsOn(dep2) && holder.isDependsOn('dep1')) {
+                matched++
+            }
+        }
+        long allocated = mxBean.getThreadAllocatedBytes(threadId) - start
+        assert matched == times
+        return allocated
+    }
+
+    def "Test go on requested by other thread during changing"() {
+        given:
+        ServiceHolder holder
+        def satisfied = false
+        ISatisfyHook hook = Mock(ISatisfyHook) {
+            isSatisfied(_) >> {
+                if (! satisfied) {
+                    // The service is satisfied by other thread when it is checked
+                    satisfied = true
+                    def thread = new Thread({ holder.notifySatisfied() })
+                    thread.start()
+                    thread.join()
+                    return false
+                }
+                return true
+            }
+        }
+        holder = new ServiceHolder(QualifiedServiceId.FROM_LOCAL, new Object(), '1', hook)
+
+        when:
+        holder.tryInitService()
+
+        then:
+        holder.inited
+    }
 }
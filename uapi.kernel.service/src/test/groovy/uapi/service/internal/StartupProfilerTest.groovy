@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.service.internal
+
+import groovy.json.JsonSlurper
+import spock.lang.Specification
+import uapi.service.CriticalPath
+import uapi.service.ISatisfyHook
+
+import java.nio.file.Files
+
+/**
+ * Test case for StartupProfiler
+ */
+class StartupProfilerTest extends Specification {
+
+    def 'Test write trace events'() {
+        given:
+        def profiler = new StartupProfiler()
+        def qsId = new QualifiedServiceId('svc', QualifiedServiceId.FROM_LOCAL)
+        def file = Files.createTempFile('startup', '.json')
+
+        when:
+        profiler.transit(qsId, 'Resolved')
+        profiler.record(qsId, StartupProfiler.PHASE_INIT, System.nanoTime(), 'a "detail"')
+        profiler.write(file.toString(), new CriticalPath(['svc@Local'], 10))
+        def trace = new JsonSlurper().parse(file.toFile())
+
+        then:
+        trace.traceEvents.size() == 3
+        trace.traceEvents[0].name == 'Resolved'
+        trace.traceEvents[0].ph == 'i'
+        trace.traceEvents[1].name == StartupProfiler.PHASE_INIT
+        trace.traceEvents[1].ph == 'X'
+        trace.traceEvents[1].args.service == 'svc@Local'
+        trace.traceEvents[1].args.detail == 'a "detail"'
+        trace.traceEvents[2].name == 'thread_name'
+        trace.traceEvents[2].args.name == Thread.currentThread().name
+        trace.otherData.criticalPath == 'svc@Local'
+        trace.otherData.criticalPathMs == 10
+        profiler.getCost(qsId) > 0
+
+        cleanup:
+        Files.deleteIfExists(file)
+    }
+
+    def 'Test calculate critical path'() {
+        given:
+        def a = Mock(ServiceHolder) {
+            getQualifiedId() >> new QualifiedServiceId('a', QualifiedServiceId.FROM_LOCAL)
+            getDependencies() >> []
+        }
+        def b = Mock(ServiceHolder) {
+            getQualifiedId() >> new QualifiedServiceId('b', QualifiedServiceId.FROM_LOCAL)
+            getDependencies() >> [a]
+        }
+        def c = Mock(ServiceHolder) {
+            getQualifiedId() >> new QualifiedServiceId('c', QualifiedServiceId.FROM_LOCAL)
+            getDependencies() >> []
+        }
+        def costs = [(a): 2000000L, (b): 3000000L, (c): 4000000L]
+
+        when:
+        def path = StartupProfiler.calculateCriticalPath([a, b, c], { costs[it] })
+
+        then:
+        path.serviceIds == ['a@Local', 'b@Local']
+        path.elapsedTime == 5
+    }
+
+    def 'Test calculate critical path of long dependency chain'() {
+        given:
+        def hook = Mock(ISatisfyHook)
+        def holders = []
+        (0..<count).each { idx ->
+            def dependencies = idx == 0 ? [] as String[] : ["s${idx - 1}@${QualifiedServiceId.FROM_LOCAL}".toString()] as String[]
+            def holder = new ServiceHolder(QualifiedServiceId.FROM_LOCAL, new Object(), "s${idx}", dependencies, hook)
+            if (idx > 0) {
+                holder.resolveDependency(holders[idx - 1])
+            }
+            holders << holder
+        }
+
+        when:
+        def path = StartupProfiler.calculateCriticalPath(holders.reverse(), { 1000000L })
+
+        then:
+        path.serviceIds.size() == count
+        path.serviceIds.first() == 's0@Local'
+        path.serviceIds.last() == "s${count - 1}@Local".toString()
+        path.elapsedTime == count
+
+        where:
+        count << [5000]
+    }
+}
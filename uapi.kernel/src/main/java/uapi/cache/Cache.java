@@ -0,0 +1,257 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.cache;
+
+import uapi.ThreadSafe;
+import uapi.helper.ArgumentChecker;
+import uapi.helper.Guarder;
+import uapi.helper.StringHelper;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded concurrent cache which evicts entries by CLOCK algorithm, an approximation
+ * of LRU: a read only marks the entry as referenced and never locks, a write links the
+ * entry into a ring under a lock and the clock hand evicts the first entry which was
+ * not referenced since the hand passed it last time.
+ * The cache can store null value, the get method returns NULL for it.
+ */
+@ThreadSafe
+public final class Cache {
+
+    /**
+     * The value which is returned by get method when a null value is cached
+     */
+    public static final Object NULL = new Object();
+
+    private final String _name;
+    private final ConcurrentHashMap<Object, Node> _entries = new ConcurrentHashMap<>();
+    private final Guarder _guarder = Guarder.by(new ReentrantLock());
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+
+    private volatile int _maxSize;
+    private volatile long _ttl;
+
+    // The ring and clock hand are guarded by _guarder
+    private Node _hand;
+    private int _size;
+
+    Cache(final String name, final int maxSize, final long ttl) {
+        ArgumentChecker.notEmpty(name, "name");
+        ArgumentChecker.checkInt(maxSize, "maxSize", 1, Integer.MAX_VALUE);
+        this._name = name;
+        this._maxSize = maxSize;
+        this._ttl = TimeUnit.MILLISECONDS.toNanos(ttl < 0 ? 0 : ttl);
+    }
+
+    public String getName() {
+        return this._name;
+    }
+
+    /**
+     * Get cached value by key
+     *
+     * @param   key
+     *          The key, it must not be null
+     * @return  The cached value, NULL if null value is cached or null if no value is cached
+     */
+    public Object get(final Object key) {
+        Node node = this._entries.get(key);
+        if (node == null) {
+            this._misses.increment();
+            return null;
+        }
+        long ttl = this._ttl;
+        if (ttl > 0 && System.nanoTime() - node._writeTime > ttl) {
+            if (this._entries.remove(key, node)) {
+                this._guarder.run(() -> unlink(node));
+            }
+            this._misses.increment();
+            return null;
+        }
+        if (! node._referenced) {
+            node._referenced = true;
+        }
+        this._hits.increment();
+        return node._value;
+    }
+
+    /**
+     * Put a value into the cache, the least recently used entries will be evicted if
+     * the cache is full
+     *
+     * @param   key
+     *          The key, it must not be null
+     * @param   value
+     *          The value, it can be null
+     */
+    public void put(final Object key, final Object value) {
+        Node node = new Node(key, value == null ? NULL : value);
+        Node old = this._entries.put(key, node);
+        this._guarder.run(() -> {
+            if (old != null) {
+                unlink(old);
+            }
+            link(node);
+            evict(this._maxSize);
+        });
+    }
+
+    public void remove(final Object key) {
+        Node node = this._entries.remove(key);
+        if (node != null) {
+            this._guarder.run(() -> unlink(node));
+        }
+    }
+
+    public void clear() {
+        this._guarder.run(() -> evict(0));
+    }
+
+    public int getMaxSize() {
+        return this._maxSize;
+    }
+
+    /**
+     * Change max size of the cache, the exceeded entries are evicted immediately
+     *
+     * @param   maxSize
+     *          The new max size
+     */
+    public void setMaxSize(final int maxSize) {
+        ArgumentChecker.checkInt(maxSize, "maxSize", 1, Integer.MAX_VALUE);
+        this._maxSize = maxSize;
+        this._guarder.run(() -> evict(maxSize));
+    }
+
+    /**
+     * Return the time to live in milliseconds, 0 means the entry never expires
+     *
+     * @return  The time to live
+     */
+    public long getTtl() {
+        return TimeUnit.NANOSECONDS.toMillis(this._ttl);
+    }
+
+    public void setTtl(final long ttl) {
+        this._ttl = TimeUnit.MILLISECONDS.toNanos(ttl < 0 ? 0 : ttl);
+    }
+
+    public int getSize() {
+        return this._guarder.runForResult(() -> this._size);
+    }
+
+    public long getHitCount() {
+        return this._hits.sum();
+    }
+
+    public long getMissCount() {
+        return this._misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return this._evictions.sum();
+    }
+
+    public double getHitRate() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private void link(final Node node) {
+        if (node._unlinked) {
+            // The node was replaced before it is linked
+            return;
+        }
+        if (this._hand == null) {
+            node._prev = node;
+            node._next = node;
+            this._hand = node;
+        } else {
+            // Insert just behind the hand so the new node is checked last
+            node._next = this._hand;
+            node._prev = this._hand._prev;
+            this._hand._prev._next = node;
+            this._hand._prev = node;
+        }
+        node._linked = true;
+        this._size++;
+    }
+
+    private void unlink(final Node node) {
+        if (! node._linked) {
+            node._unlinked = true;
+            return;
+        }
+        if (node._next == node) {
+            this._hand = null;
+        } else {
+            node._prev._next = node._next;
+            node._next._prev = node._prev;
+            if (this._hand == node) {
+                this._hand = node._next;
+            }
+        }
+        node._prev = null;
+        node._next = null;
+        node._linked = false;
+        node._unlinked = true;
+        this._size--;
+    }
+
+    private void evict(final int maxSize) {
+        while (this._size > maxSize) {
+            Node node = this._hand;
+            if (node._referenced && maxSize > 0) {
+                node._referenced = false;
+                this._hand = node._next;
+                continue;
+            }
+            this._entries.remove(node._key, node);
+            unlink(node);
+            if (maxSize > 0) {
+                this._evictions.increment();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return StringHelper.makeString(
+                "Cache[name={}, maxSize={}, ttl={}ms, hits={}, misses={}, evictions={}]",
+                this._name, this._maxSize, getTtl(), getHitCount(), getMissCount(), getEvictionCount());
+    }
+
+    private static final class Node {
+
+        private final Object _key;
+        private final Object _value;
+        private final long _writeTime;
+        private volatile boolean _referenced;
+
+        // Below fields are guarded by the cache lock
+        private Node _prev;
+        private Node _next;
+        private boolean _linked;
+        private boolean _unlinked;
+
+        private Node(final Object key, final Object value) {
+            this._key = key;
+            this._value = value;
+            this._writeTime = System.nanoTime();
+        }
+    }
+}
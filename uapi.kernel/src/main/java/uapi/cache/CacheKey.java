@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.cache;
+
+import java.util.Arrays;
+
+/**
+ * A cache key which is composed by method arguments.
+ * The primitive arguments are stored as long bits so they are not boxed.
+ */
+public final class CacheKey {
+
+    public static final long[] NO_PRIMITIVES    = new long[0];
+    public static final Object[] NO_OBJECTS     = new Object[0];
+
+    /**
+     * The key for method which has no argument
+     */
+    public static final CacheKey EMPTY = new CacheKey(NO_PRIMITIVES, NO_OBJECTS);
+
+    private static final Object NULL_KEY = new Object();
+
+    /**
+     * Return a key for method which has only one argument
+     *
+     * @param   argument
+     *          The argument
+     * @return  The argument itself or a constant key if the argument is null
+     */
+    public static Object of(final Object argument) {
+        return argument == null ? NULL_KEY : argument;
+    }
+
+    private final long[] _primitives;
+    private final Object[] _objects;
+    private final int _hash;
+
+    public CacheKey(final long[] primitives, final Object[] objects) {
+        this._primitives = primitives;
+        this._objects = objects;
+        this._hash = 31 * Arrays.hashCode(primitives) + Arrays.deepHashCode(objects);
+    }
+
+    @Override
+    public int hashCode() {
+        return this._hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (! (obj instanceof CacheKey)) {
+            return false;
+        }
+        CacheKey other = (CacheKey) obj;
+        return this._hash == other._hash &&
+                Arrays.equals(this._primitives, other._primitives) &&
+                Arrays.deepEquals(this._objects, other._objects);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheKey[primitives=" + Arrays.toString(this._primitives) +
+                ", objects=" + Arrays.deepToString(this._objects) + "]";
+    }
+}
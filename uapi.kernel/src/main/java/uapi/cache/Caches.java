@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.cache;
+
+import uapi.helper.ArgumentChecker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The registry of all caches in the JVM.
+ * The generated code of Cacheable annotation resolves its cache once when the generated
+ * class is loaded. The size and time to live of a cache can be tuned by name before or
+ * after the cache is created.
+ */
+public final class Caches {
+
+    private static final ConcurrentMap<String, Cache> _caches = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Integer> _maxSizes = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Long> _ttls = new ConcurrentHashMap<>();
+
+    private Caches() { }
+
+    /**
+     * Return the cache which has specific name, create it if it does not exist.
+     * The size and time to live are used only when the cache is created and they
+     * are not tuned.
+     *
+     * @param   name
+     *          The cache name
+     * @param   maxSize
+     *          The max number of entries
+     * @param   ttl
+     *          The time to live of entries in milliseconds, 0 means never expires
+     * @return  The cache
+     */
+    public static Cache cache(final String name, final int maxSize, final long ttl) {
+        ArgumentChecker.notEmpty(name, "name");
+        Cache cache = _caches.get(name);
+        if (cache == null) {
+            cache = _caches.computeIfAbsent(name, key -> new Cache(
+                    key, _maxSizes.getOrDefault(key, maxSize), _ttls.getOrDefault(key, ttl)));
+        }
+        return cache;
+    }
+
+    /**
+     * Change the max size of the cache which has specific name, the change is
+     * applied when the cache is created if it does not exist now
+     *
+     * @param   name
+     *          The cache name
+     * @param   maxSize
+     *          The max number of entries
+     */
+    public static void tuneMaxSize(final String name, final int maxSize) {
+        ArgumentChecker.notEmpty(name, "name");
+        ArgumentChecker.checkInt(maxSize, "maxSize", 1, Integer.MAX_VALUE);
+        _maxSizes.put(name, maxSize);
+        Cache cache = _caches.get(name);
+        if (cache != null) {
+            cache.setMaxSize(maxSize);
+        }
+    }
+
+    /**
+     * Change the time to live of the cache which has specific name, the change is
+     * applied when the cache is created if it does not exist now
+     *
+     * @param   name
+     *          The cache name
+     * @param   ttl
+     *          The time to live of entries in milliseconds, 0 means never expires
+     */
+    public static void tuneTtl(final String name, final long ttl) {
+        ArgumentChecker.notEmpty(name, "name");
+        _ttls.put(name, ttl);
+        Cache cache = _caches.get(name);
+        if (cache != null) {
+            cache.setTtl(ttl);
+        }
+    }
+
+    /**
+     * Find cache by name
+     *
+     * @param   name
+     *          The cache name
+     * @return  The cache or null if no such cache
+     */
+    public static Cache findCache(final String name) {
+        ArgumentChecker.notEmpty(name, "name");
+        return _caches.get(name);
+    }
+
+    /**
+     * Return all registered caches
+     *
+     * @return  The cache list
+     */
+    public static List<Cache> getCaches() {
+        return Collections.unmodifiableList(new ArrayList<>(_caches.values()));
+    }
+}
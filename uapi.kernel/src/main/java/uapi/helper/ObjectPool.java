@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.helper;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * A lock free object pool which keeps at most specific number of idle objects.
+ * Borrowing from an empty pool creates new object by the creator, releasing an
+ * object into a full pool drops it, so the borrow and release never block.
+ *
+ * @param   <T>
+ *          The type of pooled object
+ */
+public class ObjectPool<T> {
+
+    private final AtomicReferenceArray<T> _slots;
+    private final Supplier<T> _creator;
+
+    public ObjectPool(
+            final int maxSize,
+            final Supplier<T> creator
+    ) {
+        ArgumentChecker.checkInt(maxSize, "maxSize", 1, Integer.MAX_VALUE);
+        ArgumentChecker.notNull(creator, "creator");
+        this._slots = new AtomicReferenceArray<>(maxSize);
+        this._creator = creator;
+    }
+
+    /**
+     * Take an idle object from the pool or create a new one if there is no idle object
+     *
+     * @return  The object
+     */
+    public T borrow() {
+        int size = this._slots.length();
+        int start = startIndex(size);
+        for (int i = 0; i < size; i++) {
+            int idx = (start + i) % size;
+            if (this._slots.get(idx) != null) {
+                T obj = this._slots.getAndSet(idx, null);
+                if (obj != null) {
+                    return obj;
+                }
+            }
+        }
+        return this._creator.get();
+    }
+
+    /**
+     * Give back specific object to the pool
+     *
+     * @param   obj
+     *          The object which was borrowed from the pool
+     * @return  true means the object is kept by the pool, false means the pool is full
+     *          and the object is dropped
+     */
+    public boolean release(final T obj) {
+        ArgumentChecker.notNull(obj, "obj");
+        int size = this._slots.length();
+        int start = startIndex(size);
+        for (int i = 0; i < size; i++) {
+            int idx = (start + i) % size;
+            if (this._slots.get(idx) == null && this._slots.compareAndSet(idx, null, obj)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getMaxSize() {
+        return this._slots.length();
+    }
+
+    /**
+     * Return count of idle objects, the value is a snapshot and may be changed at any time
+     *
+     * @return  The count of idle objects
+     */
+    public int getIdleCount() {
+        int count = 0;
+        for (int i = 0; i < this._slots.length(); i++) {
+            if (this._slots.get(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Different threads start scanning from different slot to reduce contention
+     */
+    private static int startIndex(final int size) {
+        return (int) (Thread.currentThread().getId() % size);
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.metric;
+
+import uapi.helper.ArgumentChecker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The registry of all metrics in the JVM.
+ * The generated code of Timed annotation resolves its timer once when the generated
+ * class is loaded, so the registry is not touched when the timed method is invoked.
+ */
+public final class Metrics {
+
+    private static final ConcurrentMap<String, Timer> _timers = new ConcurrentHashMap<>();
+
+    private Metrics() { }
+
+    /**
+     * Return the timer which has specific name, create it if it does not exist
+     *
+     * @param   name
+     *          The timer name
+     * @return  The timer
+     */
+    public static Timer timer(final String name) {
+        ArgumentChecker.notEmpty(name, "name");
+        Timer timer = _timers.get(name);
+        if (timer == null) {
+            timer = _timers.computeIfAbsent(name, Timer::new);
+        }
+        return timer;
+    }
+
+    /**
+     * Find timer by name
+     *
+     * @param   name
+     *          The timer name
+     * @return  The timer or null if no such timer
+     */
+    public static Timer findTimer(final String name) {
+        ArgumentChecker.notEmpty(name, "name");
+        return _timers.get(name);
+    }
+
+    /**
+     * Return all registered timers
+     *
+     * @return  The timer list
+     */
+    public static List<Timer> getTimers() {
+        return Collections.unmodifiableList(new ArrayList<>(_timers.values()));
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.metric;
+
+import uapi.InvalidArgumentException;
+import uapi.ThreadSafe;
+import uapi.helper.ArgumentChecker;
+import uapi.helper.StringHelper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free timer which records call count, error count and latency of a method.
+ * The latency is kept in a histogram which bucket i holds the calls which took
+ * [2^i, 2^(i+1)) nanoseconds, so recording is a few adder increments and never blocks.
+ */
+@ThreadSafe
+public final class Timer {
+
+    private static final int BUCKET_COUNT = 64;
+
+    private final String _name;
+    private final LongAdder _count = new LongAdder();
+    private final LongAdder _errors = new LongAdder();
+    private final LongAdder _totalTime = new LongAdder();
+    private final AtomicLong _maxTime = new AtomicLong();
+    private final LongAdder[] _buckets = new LongAdder[BUCKET_COUNT];
+
+    Timer(final String name) {
+        ArgumentChecker.notEmpty(name, "name");
+        this._name = name;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            this._buckets[i] = new LongAdder();
+        }
+    }
+
+    public String getName() {
+        return this._name;
+    }
+
+    /**
+     * Record one call which took specific nanoseconds
+     *
+     * @param   nanos
+     *          The elapsed time in nanoseconds
+     */
+    public void record(final long nanos) {
+        long elapsed = nanos < 0 ? 0 : nanos;
+        this._count.increment();
+        this._totalTime.add(elapsed);
+        this._buckets[bucketIndex(elapsed)].increment();
+        long max = this._maxTime.get();
+        while (elapsed > max && ! this._maxTime.compareAndSet(max, elapsed)) {
+            max = this._maxTime.get();
+        }
+    }
+
+    /**
+     * Record one call which was ended by an exception, the time of the call
+     * should be recorded by record method as well
+     */
+    public void error() {
+        this._errors.increment();
+    }
+
+    public long getCount() {
+        return this._count.sum();
+    }
+
+    public long getErrorCount() {
+        return this._errors.sum();
+    }
+
+    public long getTotalTime() {
+        return this._totalTime.sum();
+    }
+
+    public long getMaxTime() {
+        return this._maxTime.get();
+    }
+
+    public long getMeanTime() {
+        long count = getCount();
+        return count == 0 ? 0 : getTotalTime() / count;
+    }
+
+    /**
+     * Return a snapshot of the latency histogram, the element i is the count of
+     * calls which took [2^i, 2^(i+1)) nanoseconds, the element 0 includes 0 nanosecond
+     *
+     * @return  The histogram
+     */
+    public long[] getHistogram() {
+        long[] histogram = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            histogram[i] = this._buckets[i].sum();
+        }
+        return histogram;
+    }
+
+    /**
+     * Estimate the latency at specific percentile, the result is the upper bound
+     * of the histogram bucket which contains the percentile
+     *
+     * @param   percentile
+     *          The percentile, it must be in (0, 100]
+     * @return  The estimated latency in nanoseconds or 0 if no call was recorded
+     */
+    public long getPercentile(final double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new InvalidArgumentException("The percentile must be in (0, 100] - {}", percentile);
+        }
+        long[] histogram = getHistogram();
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += histogram[i];
+            if (seen >= threshold) {
+                return Math.min(upperBound(i), getMaxTime());
+            }
+        }
+        return getMaxTime();
+    }
+
+    private static int bucketIndex(final long nanos) {
+        return nanos == 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    private static long upperBound(final int bucketIndex) {
+        return bucketIndex >= 62 ? Long.MAX_VALUE : (1L << (bucketIndex + 1)) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return StringHelper.makeString(
+                "Timer[name={}, count={}, errors={}, mean={}ns, max={}ns]",
+                this._name, getCount(), getErrorCount(), getMeanTime(), getMaxTime());
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.cache
+
+import spock.lang.Specification
+
+/**
+ * Unit test for Cache
+ */
+class CacheTest extends Specification {
+
+    def 'Test get and put'() {
+        given:
+        def cache = new Cache('test', 10, 0)
+
+        when:
+        cache.put('a', 1)
+        cache.put('b', null)
+
+        then:
+        cache.get('a') == 1
+        cache.get('b').is(Cache.NULL)
+        cache.get('c') == null
+        cache.getSize() == 2
+        cache.getHitCount() == 2
+        cache.getMissCount() == 1
+    }
+
+    def 'Test evict not referenced entry'() {
+        given:
+        def cache = new Cache('test', 2, 0)
+
+        when:
+        cache.put('a', 1)
+        cache.put('b', 2)
+        cache.get('a')
+        cache.put('c', 3)
+
+        then:
+        cache.get('a') == 1
+        cache.get('b') == null
+        cache.get('c') == 3
+        cache.getSize() == 2
+        cache.getEvictionCount() == 1
+    }
+
+    def 'Test replace entry'() {
+        given:
+        def cache = new Cache('test', 2, 0)
+
+        when:
+        cache.put('a', 1)
+        cache.put('a', 2)
+
+        then:
+        cache.get('a') == 2
+        cache.getSize() == 1
+    }
+
+    def 'Test expire entry'() {
+        given:
+        def cache = new Cache('test', 2, 1)
+
+        when:
+        cache.put('a', 1)
+        Thread.sleep(5)
+
+        then:
+        cache.get('a') == null
+        cache.getSize() == 0
+    }
+
+    def 'Test shrink and clear'() {
+        given:
+        def cache = new Cache('test', 10, 0)
+        (1..10).each { cache.put(it, it) }
+
+        when:
+        cache.setMaxSize(3)
+
+        then:
+        cache.getSize() == 3
+        cache.getEvictionCount() == 7
+
+        when:
+        cache.clear()
+
+        then:
+        cache.getSize() == 0
+        cache.get(10) == null
+    }
+
+    def 'Test cache key'() {
+        expect:
+        new CacheKey([1L, 2L] as long[], ['a'] as Object[]) == new CacheKey([1L, 2L] as long[], ['a'] as Object[])
+        new CacheKey([1L, 2L] as long[], ['a'] as Object[]) != new CacheKey([2L, 1L] as long[], ['a'] as Object[])
+        new CacheKey(CacheKey.NO_PRIMITIVES, [['a'] as String[]] as Object[]) == new CacheKey(CacheKey.NO_PRIMITIVES, [['a'] as String[]] as Object[])
+        CacheKey.of(null).is(CacheKey.of(null))
+        CacheKey.of('a') == 'a'
+    }
+
+    def 'Test tune cache before it is created'() {
+        when:
+        Caches.tuneMaxSize('uapi.cache.CacheTest', 5)
+        def cache = Caches.cache('uapi.cache.CacheTest', 100, 0)
+
+        then:
+        cache.getMaxSize() == 5
+        Caches.findCache('uapi.cache.CacheTest').is(cache)
+
+        when:
+        Caches.tuneTtl('uapi.cache.CacheTest', 1000)
+
+        then:
+        cache.getTtl() == 1000
+    }
+}
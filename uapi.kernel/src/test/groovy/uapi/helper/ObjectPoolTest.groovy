@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.helper
+
+import spock.lang.Specification
+import uapi.InvalidArgumentException
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Unit test for ObjectPool
+ */
+class ObjectPoolTest extends Specification {
+
+    def 'Test borrow and release'() {
+        given:
+        def created = new AtomicInteger()
+        def pool = new ObjectPool<Object>(2, { created.incrementAndGet(); new Object() })
+
+        when:
+        def obj1 = pool.borrow()
+        def obj2 = pool.borrow()
+
+        then:
+        created.get() == 2
+        ! obj1.is(obj2)
+        pool.getIdleCount() == 0
+
+        when:
+        pool.release(obj1)
+        def obj3 = pool.borrow()
+
+        then:
+        obj3.is(obj1)
+        created.get() == 2
+    }
+
+    def 'Test release to full pool'() {
+        given:
+        def pool = new ObjectPool<Object>(1, { new Object() })
+
+        expect:
+        pool.release(new Object())
+        ! pool.release(new Object())
+        pool.getIdleCount() == 1
+        pool.getMaxSize() == 1
+    }
+
+    def 'Test borrow concurrently'() {
+        given:
+        def created = new AtomicInteger()
+        def pool = new ObjectPool<AtomicInteger>(4, { created.incrementAndGet(); new AtomicInteger() })
+        def executor = Executors.newFixedThreadPool(8)
+        def tasks = (1..8).collect {
+            {
+                ->
+                1000.times {
+                    def obj = pool.borrow()
+                    // The borrowed object must not be used by others at same time
+                    assert obj.incrementAndGet() == 1
+                    obj.decrementAndGet()
+                    pool.release(obj)
+                }
+                return true
+            } as Callable<Boolean>
+        }
+
+        when:
+        def results = executor.invokeAll(tasks).collect { it.get() }
+
+        then:
+        results.every { it }
+        pool.getIdleCount() <= 4
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def 'Test invalid size'() {
+        when:
+        new ObjectPool<Object>(0, { new Object() })
+
+        then:
+        thrown(InvalidArgumentException)
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.metric
+
+import spock.lang.Specification
+import uapi.InvalidArgumentException
+
+/**
+ * Unit test for Timer
+ */
+class TimerTest extends Specification {
+
+    def 'Test record'() {
+        given:
+        def timer = new Timer('test')
+
+        when:
+        timer.record(100)
+        timer.record(300)
+        timer.error()
+
+        then:
+        timer.getCount() == 2
+        timer.getErrorCount() == 1
+        timer.getTotalTime() == 400
+        timer.getMeanTime() == 200
+        timer.getMaxTime() == 300
+        timer.getHistogram()[6] == 1
+        timer.getHistogram()[8] == 1
+    }
+
+    def 'Test percentile'() {
+        given:
+        def timer = new Timer('test')
+        (1..100).each { timer.record(it * 1000) }
+
+        expect:
+        timer.getPercentile(50) == 65535
+        timer.getPercentile(100) == 100000
+        new Timer('empty').getPercentile(99) == 0
+    }
+
+    def 'Test invalid percentile'() {
+        when:
+        new Timer('test').getPercentile(0)
+
+        then:
+        thrown(InvalidArgumentException)
+    }
+
+    def 'Test find timer from metrics'() {
+        when:
+        def timer = Metrics.timer('uapi.metric.TimerTest')
+
+        then:
+        Metrics.timer('uapi.metric.TimerTest').is(timer)
+        Metrics.findTimer('uapi.metric.TimerTest').is(timer)
+        Metrics.getTimers().contains(timer)
+        Metrics.findTimer('uapi.metric.TimerTest.none') == null
+    }
+}
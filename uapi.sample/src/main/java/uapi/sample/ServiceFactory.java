@@ -10,12 +10,13 @@
 package uapi.sample;
 
 import uapi.service.IServiceFactory;
+import uapi.service.Scope;
 import uapi.service.annotation.Service;
 
 /**
  * Created by xquan on 3/9/2016.
  */
-@Service
+@Service(scope = Scope.Prototype)
 public class ServiceFactory implements IServiceFactory<String> {
 
     @Override
@@ -21,8 +21,14 @@ import uapi.service.remote.IRemoteServiceConfigurableKey;
 import uapi.service.remote.IServiceDiscover;
 import uapi.service.remote.ServiceInterfaceMeta;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * ServiceLoader used to load service remotely
@@ -66,4 +72,47 @@ public class RemoteServiceLoader implements IServiceLoader {
         svcIntfMeta = this._svcDiscover.discover(svcIntfMeta);
         return (T) this._proxyBuilder.build(svcIntfMeta);
     }
+
+    /**
+     * Load the services concurrently, each service is discovered by one remote request so
+     * the requests are sent at same time, at most uapi.loader.parallelism requests are
+     * in flight
+     */
+    @Override
+    public Map<String, Object> loadAll(final Collection<String> serviceIds) {
+        ArgumentChecker.notNull(serviceIds, "serviceIds");
+        if (serviceIds.size() <= 1) {
+            return IServiceLoader.super.loadAll(serviceIds);
+        }
+        int parallelism = Math.min(serviceIds.size(),
+                Integer.getInteger(PROP_LOADER_PARALLELISM, DEFAULT_LOADER_PARALLELISM));
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "remote-service-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<String, CompletableFuture<Object>> loadings = new LinkedHashMap<>();
+            serviceIds.forEach(serviceId -> loadings.put(serviceId,
+                    CompletableFuture.supplyAsync(() -> load(serviceId), executor)));
+            Map<String, Object> svcs = new HashMap<>();
+            loadings.forEach((serviceId, loading) -> {
+                Object svc;
+                try {
+                    svc = loading.join();
+                } catch (CompletionException ex) {
+                    if (ex.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) ex.getCause();
+                    }
+                    throw new KernelException(ex.getCause(), "Load remote service {} failed", serviceId);
+                }
+                if (svc != null) {
+                    svcs.put(serviceId, svc);
+                }
+            });
+            return svcs;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.web;
+
+/**
+ * Provide raw argument values of a restful request, the generated restful service
+ * reads the values by argument mappings and converts them to the method argument types
+ */
+public interface IRequestArguments {
+
+    /**
+     * Get value of specific http header
+     *
+     * @param   name
+     *          The header name
+     * @return  The header value or null if the header does not exist
+     */
+    String getHeader(String name);
+
+    /**
+     * Get value of the uri path segment which follows the service name
+     *
+     * @param   index
+     *          The index of the segment, the first segment after service name is 0
+     * @return  The segment value or null if the uri has no segment at the index
+     */
+    String getUriParameter(int index);
+
+    /**
+     * Get value of specific query parameter
+     *
+     * @param   name
+     *          The parameter name
+     * @return  The first value of the parameter or null if the parameter does not exist
+     */
+    String getParameter(String name);
+}
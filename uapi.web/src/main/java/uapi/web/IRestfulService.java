@@ -13,8 +13,6 @@ import uapi.IIdentifiable;
 import uapi.service.web.ArgumentMapping;
 import uapi.service.web.HttpMethod;
 
-import java.util.List;
-
 /**
  * A interface for restful service
  */
@@ -34,13 +32,14 @@ public interface IRestfulService extends IIdentifiable<String> {
     String getReturnTypeName(HttpMethod method);
 
     /**
-     * Invoke the web service by specific http method and parsed arguments
+     * Invoke the web service by specific http method, the arguments are read from request
+     * and converted to the method argument types directly
      *
      * @param   method
      *          The http method
-     * @param   args
-     *          The parsed arguments which is extracted from http header/query param/uri
+     * @param   arguments
+     *          The raw argument values which are extracted from http header/query param/uri
      * @return  The web service execution result
      */
-    Object invoke(HttpMethod method, List<Object> args);
+    Object invoke(HttpMethod method, IRequestArguments arguments);
 }
@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2010 The UAPI Authors
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at the LICENSE file.
+ *
+ * You must gained the permission from the authors if you want to
+ * use the project into a commercial product
+ */
+
+package uapi.web;
+
+import uapi.InvalidArgumentException;
+import uapi.InvalidArgumentException.InvalidArgumentType;
+
+import java.util.function.Function;
+
+/**
+ * The generated restful service converts raw request values by the parser, a value which
+ * is missing or can't be converted to the argument type is reported by InvalidArgumentException,
+ * so the request is responded as bad request instead of internal error.
+ * The argument of primitive type is required, the argument of boxed type is null if it is missing.
+ */
+public final class RequestArgumentParser {
+
+    private RequestArgumentParser() { }
+
+    public static String required(final String value, final String argument) {
+        if (value == null) {
+            throw new InvalidArgumentException(argument, InvalidArgumentType.EMPTY);
+        }
+        return value;
+    }
+
+    public static boolean parseBoolean(final String value, final String argument) {
+        return Boolean.parseBoolean(required(value, argument));
+    }
+
+    public static int parseInt(final String value, final String argument) {
+        String required = required(value, argument);
+        try {
+            return Integer.parseInt(required);
+        } catch (NumberFormatException ex) {
+            throw new InvalidArgumentException(argument, InvalidArgumentType.FORMAT);
+        }
+    }
+
+    public static long parseLong(final String value, final String argument) {
+        String required = required(value, argument);
+        try {
+            return Long.parseLong(required);
+        } catch (NumberFormatException ex) {
+            throw new InvalidArgumentException(argument, InvalidArgumentType.FORMAT);
+        }
+    }
+
+    public static float parseFloat(final String value, final String argument) {
+        String required = required(value, argument);
+        try {
+            return Float.parseFloat(required);
+        } catch (NumberFormatException ex) {
+            throw new InvalidArgumentException(argument, InvalidArgumentType.FORMAT);
+        }
+    }
+
+    public static double parseDouble(final String value, final String argument) {
+        String required = required(value, argument);
+        try {
+            return Double.parseDouble(required);
+        } catch (NumberFormatException ex) {
+            throw new InvalidArgumentException(argument, InvalidArgumentType.FORMAT);
+        }
+    }
+
+    /**
+     * Convert the value of boxed type argument
+     *
+     * @param   value
+     *          The raw value
+     * @param   argument
+     *          The argument description which is used in the error message
+     * @param   parser
+     *          The parser which converts the raw value
+     * @param   <T>
+     *          The argument type
+     * @return  The converted value or null if the raw value is null
+     */
+    public static <T> T parseNullable(final String value, final String argument, final Function<String, T> parser) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException ex) {
+            throw new InvalidArgumentException(argument, InvalidArgumentType.FORMAT);
+        }
+    }
+}
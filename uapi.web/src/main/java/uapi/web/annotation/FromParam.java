@@ -18,7 +18,7 @@ import java.lang.annotation.Target;
  * Indicate the value should be extracted from query string of the HTTP request
  */
 @Target(ElementType.PARAMETER)
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 public @interface FromParam {
 
     /**
@@ -18,7 +18,7 @@ import java.lang.annotation.Target;
  * Indicate the specific method will be exposed as web service
  * The method must no be private.
  */
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 @Target(ElementType.METHOD)
 public @interface Restful {
 
@@ -13,8 +13,12 @@ import rx.*;
 import uapi.KernelException;
 import uapi.helper.ArgumentChecker;
 import uapi.helper.StringHelper;
+import uapi.Type;
+import uapi.service.web.ArgumentFrom;
 import uapi.service.web.ArgumentMapping;
 import uapi.service.web.IndexedArgumentMapping;
+import uapi.service.web.NamedArgumentMapping;
+import uapi.web.RequestArgumentParser;
 
 import java.util.*;
 
@@ -26,6 +30,7 @@ public final class MethodArgumentsMapping {
     private final String _name;
     private final String _rtnTypeName;
     private final List<ArgumentMapping> _argMappings;
+    private final List<String> _argBindings;
 
     MethodArgumentsMapping(
             final String name,
@@ -36,12 +41,14 @@ public final class MethodArgumentsMapping {
         this._name = name;
         this._rtnTypeName = returnTypeName;
         this._argMappings = new ArrayList<>();
+        this._argBindings = new ArrayList<>();
     }
 
     void addArgumentMapping(
             final ArgumentMapping argMapping
     ) {
         ArgumentChecker.required(argMapping, "argMapping");
+        this._argBindings.add(toBinding(argMapping));
         this._argMappings.add(argMapping);
     }
 
@@ -89,6 +96,68 @@ public final class MethodArgumentsMapping {
         return this._argMappings;
     }
 
+    /**
+     * Get binding code of each argument, the code reads raw value from an IRequestArguments
+     * instance which is named arguments and converts it to the argument type without boxing
+     * if the argument type is primitive
+     *
+     * @return  The binding code list which is in argument order
+     */
+    public List<String> getArgumentBindings() {
+        return this._argBindings;
+    }
+
+    private static String toBinding(
+            final ArgumentMapping argMapping
+    ) throws KernelException {
+        String value;
+        String argument;
+        ArgumentFrom from = argMapping.getFrom();
+        if (from == ArgumentFrom.Header) {
+            String name = ((NamedArgumentMapping) argMapping).getName();
+            value = StringHelper.makeString("arguments.getHeader(\"{}\")", name);
+            argument = StringHelper.makeString("header {}", name);
+        } else if (from == ArgumentFrom.Uri) {
+            int index = ((IndexedArgumentMapping) argMapping).getIndex();
+            value = StringHelper.makeString("arguments.getUriParameter({})", index);
+            argument = StringHelper.makeString("uri parameter {}", index);
+        } else if (from == ArgumentFrom.Param) {
+            String name = ((NamedArgumentMapping) argMapping).getName();
+            value = StringHelper.makeString("arguments.getParameter(\"{}\")", name);
+            argument = StringHelper.makeString("parameter {}", name);
+        } else {
+            throw new KernelException("Unsupported from indication {}", from);
+        }
+
+        // The missing or invalid value is reported by the parser as an invalid argument
+        String parser = RequestArgumentParser.class.getCanonicalName();
+        String type = argMapping.getType();
+        if (Type.Q_STRING.equals(type)) {
+            return value;
+        } else if (Type.BOOLEAN.equals(type)) {
+            return StringHelper.makeString("{}.parseBoolean({}, \"{}\")", parser, value, argument);
+        } else if (Type.Q_BOOLEAN.equals(type)) {
+            return StringHelper.makeString("{}.parseNullable({}, \"{}\", java.lang.Boolean::valueOf)", parser, value, argument);
+        } else if (Type.INTEGER.equals(type)) {
+            return StringHelper.makeString("{}.parseInt({}, \"{}\")", parser, value, argument);
+        } else if (Type.Q_INTEGER.equals(type)) {
+            return StringHelper.makeString("{}.parseNullable({}, \"{}\", java.lang.Integer::valueOf)", parser, value, argument);
+        } else if (Type.LONG.equals(type)) {
+            return StringHelper.makeString("{}.parseLong({}, \"{}\")", parser, value, argument);
+        } else if (Type.Q_LONG.equals(type)) {
+            return StringHelper.makeString("{}.parseNullable({}, \"{}\", java.lang.Long::valueOf)", parser, value, argument);
+        } else if (Type.FLOAT.equals(type)) {
+            return StringHelper.makeString("{}.parseFloat({}, \"{}\")", parser, value, argument);
+        } else if (Type.Q_FLOAT.equals(type)) {
+            return StringHelper.makeString("{}.parseNullable({}, \"{}\", java.lang.Float::valueOf)", parser, value, argument);
+        } else if (Type.DOUBLE.equals(type)) {
+            return StringHelper.makeString("{}.parseDouble({}, \"{}\")", parser, value, argument);
+        } else if (Type.Q_DOUBLE.equals(type)) {
+            return StringHelper.makeString("{}.parseNullable({}, \"{}\", java.lang.Double::valueOf)", parser, value, argument);
+        }
+        throw new KernelException("Unsupported restful argument type {}", type);
+    }
+
     @Override
     public String toString() {
         return StringHelper.makeString("MethodArgumentsMapping[name={},returnTypeName={},argMapping={}]",
@@ -252,8 +252,8 @@ public class RestfulHandler extends AnnotationsHandler {
                                             .setName("method")
                                             .setType(HttpMethod.class.getCanonicalName()))
                                     .addParameterBuilder(ParameterMeta.builder()
-                                            .setName("args")
-                                            .setType("java.util.List<Object>"))
+                                            .setName("arguments")
+                                            .setType(IRequestArguments.class.getCanonicalName()))
                                     .addCodeBuilder(CodeMeta.builder()
                                             .setModel(model)
                                             .setTemplate(tempInvoke)))
@@ -10,9 +10,8 @@
 package uapi.web.internal;
 
 import com.google.common.base.Strings;
-import rx.Observable;
+import uapi.InvalidArgumentException;
 import uapi.KernelException;
-import uapi.Type;
 import uapi.config.annotation.Config;
 import uapi.helper.CollectionHelper;
 import uapi.log.ILogger;
@@ -30,6 +29,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Generic web service url mapping: /[prefix]/[web service name]/[uri params]?[query strings]
@@ -63,6 +63,11 @@ public class RestfulServiceServlet extends MappableHttpServlet {
     @Inject
     TypeMapper _typeMapper;
 
+    /**
+     * Restful service id -> response encoders which are indexed by http method ordinal
+     */
+    private final Map<String, ResponseEncoder[]> _encoders = new ConcurrentHashMap<>();
+
     @Inject
     IRegistry _registry;
 
@@ -112,7 +117,7 @@ public class RestfulServiceServlet extends MappableHttpServlet {
         UriInfo uriInfo = parseUri(request);
         if (Strings.isNullOrEmpty(uriInfo.serviceName)) {
             // Handle restful interface query
-            String[] intfNames = uriInfo.queryParams.get(PARAM_INTERFACE);
+            String[] intfNames = request.getParameterValues(PARAM_INTERFACE);
             if (intfNames == null || intfNames.length != 1) {
                 throw new KernelException("Only allow query 1 restful interface - ", CollectionHelper.asString(intfNames));
             }
@@ -167,56 +172,40 @@ public class RestfulServiceServlet extends MappableHttpServlet {
         if (matchedWebSvc == null) {
             throw new KernelException("No web service is matched name {}", svcName);
         }
-        ArgumentMapping[] argMetas = matchedWebSvc.getMethodArgumentsInfo(method);
-        List<Object> argValues = new ArrayList<>();
-        Observable.from(argMetas)
-                .subscribe(argMeta -> {
-                    ArgumentFrom from = argMeta.getFrom();
-                    String value = null;
-                    if (from == ArgumentFrom.Header) {
-                        value = request.getHeader(((NamedArgumentMapping) argMeta).getName());
-                        } else if (from == ArgumentFrom.Uri) {
-                        value = uriInfo.uriParams.get(((IndexedArgumentMapping) argMeta).getIndex());
-                    } else if (from == ArgumentFrom.Param) {
-                        value = uriInfo.queryParams.get(((NamedArgumentMapping) argMeta).getName())[0];
-                    } else {
-                        throw new KernelException("Unsupported from indication {}", from);
-                    }
-                    argValues.add(parseValue(value, argMeta.getType()));
-                }, this._logger::error);
-        Object result = matchedWebSvc.invoke(method, argValues);
-        IStringCodec codec = this._codecs.get(this._codecName);
-        if (codec == null) {
-            throw new KernelException("The response codec was not found - {}", this._codecName);
-        }
-        Class<?> type = this._typeMapper.getType(matchedWebSvc.getReturnTypeName(method));
-        if (type == null) {
-            throw new KernelException("Unsupported typ - {}", matchedWebSvc.getReturnTypeName(method));
+        ResponseEncoder encoder = getEncoder(matchedWebSvc, method);
+        Object result;
+        try {
+            result = matchedWebSvc.invoke(method, uriInfo);
+        } catch (InvalidArgumentException ex) {
+            // The argument is missing or can't be converted to the argument type
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, ex.getMessage());
+            return;
         }
-        response.getWriter().print(codec.decode(result, type));
+        response.getWriter().print(encoder.encode(result));
         response.flushBuffer();
     }
 
-    private Object parseValue(String value, String type) {
-        if (Type.Q_STRING.equals(type)) {
-            return value;
-        }
-        if (Type.Q_BOOLEAN.equals(type)) {
-            return Boolean.parseBoolean(value);
-        }
-        if (Type.Q_INTEGER.equals(type)) {
-            return Integer.parseInt(value);
-        }
-        if (Type.Q_LONG.equals(type)) {
-            return Long.parseLong(value);
-        }
-        if (Type.Q_FLOAT.equals(type)) {
-            return Float.parseFloat(value);
-        }
-        if (Type.Q_DOUBLE.equals(type)) {
-            return Double.parseDouble(value);
+    private ResponseEncoder getEncoder(
+            final IRestfulService restfulService,
+            final HttpMethod method
+    ) {
+        ResponseEncoder[] encoders = this._encoders.computeIfAbsent(
+                restfulService.getId(), svcId -> new ResponseEncoder[HttpMethod.values().length]);
+        ResponseEncoder encoder = encoders[method.ordinal()];
+        if (encoder == null) {
+            Class<?> type = this._typeMapper.getType(restfulService.getReturnTypeName(method));
+            if (type == null) {
+                throw new KernelException("Unsupported typ - {}", restfulService.getReturnTypeName(method));
+            }
+            IStringCodec codec = this._codecs.get(this._codecName);
+            if (codec == null) {
+                throw new KernelException("The response codec was not found - {}", this._codecName);
+            }
+            encoder = new ResponseEncoder(codec, type);
+            // Racing threads resolve same encoder and the encoder is immutable, so it is safe to set it without lock
+            encoders[method.ordinal()] = encoder;
         }
-        throw new KernelException("Unknown type name {}", type);
+        return encoder;
     }
 
     private UriInfo parseUri(HttpServletRequest request) {
@@ -228,7 +217,7 @@ public class RestfulServiceServlet extends MappableHttpServlet {
         String path = pathAndQuery[0];
         String query = pathAndQuery.length >= 2 ? pathAndQuery[1] : null;
 
-        UriInfo uriInfo = new UriInfo();
+        UriInfo uriInfo = new UriInfo(request);
         StringBuilder buffer = new StringBuilder();
         for (int i = this._uriPrefix.length(); i < path.length(); i++) {
             char c = path.charAt(i);
@@ -278,16 +267,50 @@ public class RestfulServiceServlet extends MappableHttpServlet {
                 }
             }
         }
-        Observable.from(request.getParameterMap().entrySet())
-                .subscribe(entry -> uriInfo.queryParams.put(entry.getKey(), entry.getValue()));
-
         return uriInfo;
     }
 
-    private final class UriInfo {
+    /**
+     * The codec and the return type which are used to encode the response of a restful method
+     */
+    private static final class ResponseEncoder {
 
+        private final IStringCodec _codec;
+        private final Class<?> _type;
+
+        private ResponseEncoder(final IStringCodec codec, final Class<?> type) {
+            this._codec = codec;
+            this._type = type;
+        }
+
+        private String encode(final Object result) {
+            return this._codec.decode(result, this._type);
+        }
+    }
+
+    private final class UriInfo implements IRequestArguments {
+
+        private final HttpServletRequest request;
         private String serviceName;
         private List<String> uriParams = new ArrayList<>();
-        private Map<String, String[]> queryParams = new HashMap<>();
+
+        private UriInfo(final HttpServletRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public String getHeader(final String name) {
+            return this.request.getHeader(name);
+        }
+
+        @Override
+        public String getUriParameter(final int index) {
+            return index < this.uriParams.size() ? this.uriParams.get(index) : null;
+        }
+
+        @Override
+        public String getParameter(final String name) {
+            return this.request.getParameter(name);
+        }
     }
 }